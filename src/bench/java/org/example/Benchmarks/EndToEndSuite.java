@@ -0,0 +1,170 @@
+package org.example.Benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.example.DBConnectionManager.ConnectionManager;
+import org.example.MigrationReport.AsyncReportSink;
+import org.example.MigrationTool.MigrationExecutor;
+import org.example.MigrationTool.MigrationTool;
+import org.example.Utils.PropertiesUtils;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end timing suite: generates a synthetic migration history with rollbacks and drives
+ * {@link MigrationTool#migrate()}, {@link MigrationTool#status()} and {@link MigrationTool#rollback(String)}
+ * against in-memory H2, recording wall time, peak heap and allocated bytes per phase.
+ * <p>
+ * Options: {@code --migrations <count>} (default 4000), {@code --data-every <n>} (default 100),
+ * {@code --data-rows <rows>} (default 5000), {@code --reports files|ndjson} (default ndjson) and
+ * {@code --output <file>} (default target/e2e-result.json).
+ */
+@Slf4j
+public final class EndToEndSuite {
+
+    private EndToEndSuite() {
+    }
+
+    /**
+     * Measurements of a single phase.
+     */
+    @Data
+    @Builder
+    public static class Phase {
+        private final String name;
+        private final long wallMillis;
+        private final long peakHeapBytes; // sum of the peak usage of the heap pools during the phase
+        private final long allocatedBytes; // allocated by all live threads during the phase
+        private final double allocationRateMbPerSecond;
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int migrations = Integer.parseInt(options.getOrDefault("migrations", "4000"));
+        int dataEvery = Integer.parseInt(options.getOrDefault("data-every", "100"));
+        int dataRows = Integer.parseInt(options.getOrDefault("data-rows", "5000"));
+        Path output = Paths.get(options.getOrDefault("output", "target/e2e-result.json"));
+
+        Path work = Files.createTempDirectory("e2e-suite");
+        List<Phase> phases = new ArrayList<>();
+        try {
+            Path migrationsDir = work.resolve("migrations");
+            Path rollbacksDir = work.resolve("rollbacks");
+            phases.add(measure("generate", () ->
+                    SyntheticMigrations.writeHistory(migrationsDir, rollbacksDir, migrations, dataEvery, dataRows)));
+
+            PropertiesUtils config = new PropertiesUtils()
+                    .withOverride("db.url", "jdbc:h2:mem:e2e_suite;DB_CLOSE_DELAY=-1;MODE=PostgreSQL")
+                    .withOverride("db.username", "sa")
+                    .withOverride("db.password", "")
+                    .withOverride("migrations.path", migrationsDir.toString())
+                    .withOverride("rollbacks.path", rollbacksDir.toString())
+                    .withOverride("reports.path", work.resolve("reports").toString())
+                    .withOverride("reports.mode", options.getOrDefault("reports", "ndjson"))
+                    .withOverride("cache.path", work.resolve("cache").toString())
+                    .withOverride("metrics.enabled", "false")
+                    .withOverride("migration.lock.type", "table");
+            try (ConnectionManager connectionManager = new ConnectionManager(config);
+                 Connection connection = connectionManager.connect()) {
+                MigrationExecutor executor = new MigrationExecutor(connection, config);
+                executor.initializeSchemaTable();
+                executor.initializeLockTable();
+                MigrationTool tool = new MigrationTool(executor, connection, config, connectionManager);
+
+                phases.add(measure("migrate", tool::migrate));
+                phases.add(measure("migrate-up-to-date", tool::migrate));
+                phases.add(measure("status", () -> quietly(tool::status)));
+                phases.add(measure("rollback", () -> tool.rollback(Integer.toString(migrations / 2))));
+                phases.add(measure("migrate-after-rollback", tool::migrate));
+            }
+        } finally {
+            AsyncReportSink.closeAll();
+            SyntheticMigrations.deleteRecursively(work);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("migrations", migrations);
+        result.put("dataEvery", dataEvery);
+        result.put("dataRows", dataRows);
+        result.put("javaVersion", System.getProperty("java.version"));
+        result.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        result.put("phases", phases);
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), result);
+
+        for (Phase phase : phases) {
+            System.out.printf("%-24s %10d ms %10.1f MB peak heap %12.1f MB allocated %10.1f MB/s%n",
+                    phase.getName(), phase.getWallMillis(), phase.getPeakHeapBytes() / 1e6,
+                    phase.getAllocatedBytes() / 1e6, phase.getAllocationRateMbPerSecond());
+        }
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+
+    private static Phase measure(String name, Step step) throws Exception {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long allocatedBefore = threads.getTotalThreadAllocatedBytes();
+        long start = System.nanoTime();
+        step.run();
+        long wallNanos = System.nanoTime() - start;
+        long allocated = threads.getTotalThreadAllocatedBytes() - allocatedBefore;
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+        Phase phase = Phase.builder()
+                .name(name)
+                .wallMillis(wallNanos / 1_000_000)
+                .peakHeapBytes(peakHeap)
+                .allocatedBytes(allocated)
+                .allocationRateMbPerSecond(wallNanos > 0 ? allocated / 1e6 / (wallNanos / 1e9) : 0)
+                .build();
+        log.info("Phase {} took {} ms", name, phase.getWallMillis());
+        return phase;
+    }
+
+    // status() prints the whole history, which would dominate the phase with console output
+    private static void quietly(Step step) throws Exception {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            step.run();
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --<option> <value>, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
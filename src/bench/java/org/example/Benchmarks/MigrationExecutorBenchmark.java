@@ -0,0 +1,85 @@
+package org.example.Benchmarks;
+
+import org.example.MigrationReport.AsyncReportSink;
+import org.example.MigrationTool.MigrationExecutor;
+import org.example.Utils.PropertiesUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MigrationExecutor#applyMigration(String, String, java.io.Reader)} of an insert script against in-memory H2,
+ * in statement and batch execution mode. Every invocation applies a new version with new rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MigrationExecutorBenchmark {
+
+    @Param({"statement", "batch"})
+    public String mode;
+
+    @Param({"1000"})
+    public int rows;
+
+    private Path reports;
+    private Connection connection;
+    private MigrationExecutor executor;
+    private long version;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        reports = Files.createTempDirectory("executor-bench");
+        connection = DriverManager.getConnection("jdbc:h2:mem:executor_bench;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE items (id BIGINT PRIMARY KEY, payload VARCHAR(100))");
+        }
+        PropertiesUtils config = new PropertiesUtils()
+                .withOverride("migration.execution.mode", mode)
+                .withOverride("reports.path", reports.toString())
+                .withOverride("reports.mode", "ndjson");
+        executor = new MigrationExecutor(connection, config);
+        executor.initializeSchemaTable();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        AsyncReportSink.closeAll();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+        SyntheticMigrations.deleteRecursively(reports);
+    }
+
+    @Benchmark
+    public long applyMigration() throws SQLException {
+        version++;
+        String script = SyntheticMigrations.insertScript("items", version * rows, rows);
+        executor.applyMigration(Long.toString(version), "insert_items", new StringReader(script));
+        return version;
+    }
+}
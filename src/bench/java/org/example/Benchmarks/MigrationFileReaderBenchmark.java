@@ -0,0 +1,102 @@
+package org.example.Benchmarks;
+
+import org.example.MigrationFile.MigrationFile;
+import org.example.MigrationFile.MigrationFileReader;
+import org.example.MigrationFile.MigrationManifest;
+import org.example.MigrationFile.MigrationVersion;
+import org.example.Utils.PropertiesUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing a migration repository: directory scan (version extraction, checksums, sort), a rescan reusing the
+ * checksums of the previous manifest, planning from the cached manifest, and sorting version strings, over
+ * synthetic repositories of 100 to 50k scripts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MigrationFileReaderBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int files;
+
+    private Path root;
+    private Path migrations;
+    private MigrationFileReader reader;
+    private MigrationManifest previous;
+    private List<String> shuffledVersions;
+    private String currentVersion;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("migration-bench");
+        migrations = root.resolve("migrations");
+        SyntheticMigrations.writeRepository(migrations, files);
+        PropertiesUtils config = new PropertiesUtils()
+                .withOverride("migrations.path", migrations.toString())
+                .withOverride("cache.path", root.resolve("cache").toString());
+        reader = new MigrationFileReader(config);
+        // warms the manifest cache used by pendingFromCachedManifest
+        reader.getMigrationFiles();
+        previous = MigrationManifest.scan(migrations, null);
+
+        shuffledVersions = new ArrayList<>(files);
+        for (int i = 1; i <= files; i++) {
+            shuffledVersions.add(i % 7 == 0 ? i + ".1" : Integer.toString(i));
+        }
+        Collections.shuffle(shuffledVersions, new Random(42));
+        currentVersion = Integer.toString(files / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticMigrations.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public MigrationManifest scanDirectory() throws IOException {
+        return MigrationManifest.scan(migrations, null);
+    }
+
+    @Benchmark
+    public MigrationManifest rescanDirectory() throws IOException {
+        return MigrationManifest.scan(migrations, previous);
+    }
+
+    @Benchmark
+    public List<MigrationFile> pendingFromCachedManifest() throws IOException {
+        return reader.getPendingMigrations(currentVersion);
+    }
+
+    @Benchmark
+    public List<String> sortVersions() {
+        List<String> versions = new ArrayList<>(shuffledVersions);
+        versions.sort(Comparator.comparing(MigrationVersion::parse));
+        return versions;
+    }
+}
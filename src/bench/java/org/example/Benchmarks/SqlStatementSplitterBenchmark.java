@@ -0,0 +1,52 @@
+package org.example.Benchmarks;
+
+import org.example.MigrationFile.SqlStatement;
+import org.example.MigrationFile.SqlStatementSplitter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting scripts of mixed PostgreSQL statements (comments, quoted literals, dollar-quoted bodies).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SqlStatementSplitterBenchmark {
+
+    @Param({"1000", "100000"})
+    public int statements;
+
+    private String script;
+
+    @Setup
+    public void setUp() {
+        script = SyntheticMigrations.mixedScript(statements, 42);
+    }
+
+    @Benchmark
+    public void split(Blackhole blackhole) throws IOException {
+        try (SqlStatementSplitter splitter = new SqlStatementSplitter(new StringReader(script))) {
+            SqlStatement statement;
+            while ((statement = splitter.next()) != null) {
+                blackhole.consume(statement);
+            }
+        }
+    }
+}
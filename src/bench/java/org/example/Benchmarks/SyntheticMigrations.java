@@ -0,0 +1,163 @@
+package org.example.Benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates synthetic migration scripts and repositories for the benchmarks.
+ * Output is deterministic for a given seed, so results of different commits are comparable.
+ */
+public final class SyntheticMigrations {
+
+    private SyntheticMigrations() {
+    }
+
+    /**
+     * Writes {@code count} small migration scripts named {@code V<n>__create_table_<n>.sql} into a directory.
+     *
+     * @param dir   the directory to write to; created if missing.
+     * @param count the number of scripts.
+     * @throws IOException if a script cannot be written.
+     */
+    public static void writeRepository(Path dir, int count) throws IOException {
+        Files.createDirectories(dir);
+        for (int i = 1; i <= count; i++) {
+            Files.writeString(dir.resolve("V" + i + "__create_table_" + i + ".sql"),
+                    "CREATE TABLE table_" + i + " (id BIGINT PRIMARY KEY, name VARCHAR(100));\n", StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Writes a realistic migration history with a matching rollback for every version.
+     * V1 creates the {@code history_data} table; every {@code dataEvery}-th version is a large data script inserting
+     * {@code dataRows} rows into it, and the other versions create a table with an index, seed a few rows and
+     * alter the table of the previous version.
+     *
+     * @param migrations the migrations directory; created if missing.
+     * @param rollbacks  the rollbacks directory; created if missing.
+     * @param count      the number of versions.
+     * @param dataEvery  the interval of data scripts; 0 writes none.
+     * @param dataRows   the number of rows inserted by each data script.
+     * @throws IOException if a script cannot be written.
+     */
+    public static void writeHistory(Path migrations, Path rollbacks, int count, int dataEvery, int dataRows)
+            throws IOException {
+        Files.createDirectories(migrations);
+        Files.createDirectories(rollbacks);
+        write(migrations.resolve("V1__create_history_data.sql"),
+                "CREATE TABLE history_data (id BIGINT PRIMARY KEY, payload VARCHAR(100));\n");
+        write(rollbacks.resolve("V1__rollback.sql"), "DROP TABLE history_data;\n");
+        for (int i = 2; i <= count; i++) {
+            if (isDataVersion(i, dataEvery)) {
+                long first = (long) i * dataRows;
+                write(migrations.resolve("V" + i + "__load_history_data.sql"),
+                        insertScript("history_data", first, dataRows));
+                write(rollbacks.resolve("V" + i + "__rollback.sql"), "DELETE FROM history_data WHERE id BETWEEN "
+                        + first + " AND " + (first + dataRows - 1) + ";\n");
+                continue;
+            }
+            StringBuilder script = new StringBuilder()
+                    .append("-- version ").append(i).append('\n')
+                    .append("CREATE TABLE t_").append(i)
+                    .append(" (id BIGINT PRIMARY KEY, name VARCHAR(100), created_at TIMESTAMP);\n")
+                    .append("CREATE INDEX idx_t_").append(i).append("_name ON t_").append(i).append(" (name);\n");
+            for (int row = 1; row <= 5; row++) {
+                script.append("INSERT INTO t_").append(i).append(" (id, name) VALUES (")
+                        .append(row).append(", 'it''s row ").append(row).append("');\n");
+            }
+            StringBuilder rollback = new StringBuilder();
+            if (i > 2 && !isDataVersion(i - 1, dataEvery)) {
+                script.append("ALTER TABLE t_").append(i - 1).append(" ADD COLUMN note_").append(i)
+                        .append(" VARCHAR(50);\n");
+                rollback.append("ALTER TABLE t_").append(i - 1).append(" DROP COLUMN note_").append(i).append(";\n");
+            }
+            rollback.append("DROP TABLE t_").append(i).append(";\n");
+            write(migrations.resolve("V" + i + "__create_t_" + i + ".sql"), script.toString());
+            write(rollbacks.resolve("V" + i + "__rollback.sql"), rollback.toString());
+        }
+    }
+
+    private static boolean isDataVersion(int version, int dataEvery) {
+        return dataEvery > 0 && version % dataEvery == 0;
+    }
+
+    /**
+     * Builds a script of mixed PostgreSQL statements: DDL, inserts with quoted literals, comments and
+     * dollar-quoted function bodies.
+     *
+     * @param statements the approximate number of statements.
+     * @param seed       the random seed.
+     * @return the script text.
+     */
+    public static String mixedScript(int statements, long seed) {
+        Random random = new Random(seed);
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < statements; i++) {
+            switch (random.nextInt(10)) {
+                case 0 -> script.append("-- table ").append(i).append('\n')
+                        .append("CREATE TABLE IF NOT EXISTS t_").append(i)
+                        .append(" (id BIGINT PRIMARY KEY, payload TEXT, created_at TIMESTAMP);\n");
+                case 1 -> script.append("CREATE OR REPLACE FUNCTION f_").append(i)
+                        .append("() RETURNS INT AS $body$ BEGIN RETURN ").append(i).append("; END; $body$ LANGUAGE plpgsql;\n");
+                case 2 -> script.append("/* bulk comment ").append(i).append(" ; with semicolons ; */\n")
+                        .append("UPDATE t_0 SET payload = 'it''s ").append(i).append("' WHERE id = ").append(i).append(";\n");
+                default -> script.append("INSERT INTO t_0 (id, payload) VALUES (").append(i)
+                        .append(", 'row ").append(i).append(" ; \"quoted\"');\n");
+            }
+        }
+        return script.toString();
+    }
+
+    /**
+     * Builds a script of {@code rows} single-row inserts into {@code table}.
+     *
+     * @param table the target table, with columns id and payload.
+     * @param first the first id.
+     * @param rows  the number of inserts.
+     * @return the script text.
+     */
+    public static String insertScript(String table, long first, int rows) {
+        StringBuilder script = new StringBuilder(rows * 64);
+        for (long id = first; id < first + rows; id++) {
+            script.append("INSERT INTO ").append(table).append(" (id, payload) VALUES (")
+                    .append(id).append(", 'payload ").append(id).append("');\n");
+        }
+        return script.toString();
+    }
+
+    /**
+     * Writes a script to a file, streaming it line by line.
+     *
+     * @param file   the file to write.
+     * @param script the script text.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path file, String script) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(script);
+        }
+    }
+
+    /**
+     * Deletes a directory tree.
+     *
+     * @param dir the directory to delete; ignored if missing.
+     * @throws IOException if a file cannot be deleted.
+     */
+    public static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.CLICommands;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.MigrationTool.MigrationTool;
+import picocli.CommandLine.Command;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+/**
+ * CLI Command to capture the current schema as a baseline snapshot of the current version.
+ */
+@Command(name = "baseline", description = "Capture the current schema as a baseline for new databases")
+@Slf4j
+public class BaselineCommand implements Runnable {
+
+    private final MigrationTool migrationTool;
+
+    public BaselineCommand(MigrationTool migrationTool) {
+        this.migrationTool = migrationTool;
+    }
+
+    @Override
+    public void run() {
+        try {
+            Path baseline = migrationTool.baseline();
+            System.out.println("Baseline written to " + baseline);
+        } catch (SQLException | IOException | IllegalStateException e) {
+            log.error("Error during baseline: " + e.getMessage());
+        }
+    }
+}
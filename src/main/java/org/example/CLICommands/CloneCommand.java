@@ -0,0 +1,48 @@
+package org.example.CLICommands;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.MigrationTool.TemplateDatabaseCache;
+import org.example.Utils.PropertiesUtils;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+/**
+ * CLI Command to create a disposable database from the migrated template database, or to drop one.
+ * Prints the JDBC URL of the created database; exits with status 1 if it cannot be created or dropped.
+ */
+@Command(name = "clone", description = "Create a migrated database from the template database")
+@Slf4j
+public class CloneCommand implements Callable<Integer> {
+
+    private final PropertiesUtils config;
+
+    @Parameters(index = "0", description = "The name of the database to create")
+    private String name;
+
+    @Option(names = {"--drop"}, description = "Drop the database instead of creating it")
+    private boolean drop;
+
+    public CloneCommand(PropertiesUtils config) {
+        this.config = config;
+    }
+
+    @Override
+    public Integer call() {
+        TemplateDatabaseCache templateDatabaseCache = new TemplateDatabaseCache(config);
+        try {
+            if (drop) {
+                templateDatabaseCache.dropDatabase(name);
+            } else {
+                System.out.println(templateDatabaseCache.cloneDatabase(name));
+            }
+            return 0;
+        } catch (SQLException | IOException | IllegalArgumentException | IllegalStateException e) {
+            log.error("Error during clone: " + e.getMessage());
+            return 1;
+        }
+    }
+}
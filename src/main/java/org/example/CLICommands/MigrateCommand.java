@@ -1,33 +1,79 @@
 
 package org.example.CLICommands;
 import lombok.extern.slf4j.Slf4j;
+import org.example.MigrationReport.FanOutSummary;
+import org.example.MigrationTool.MigrationFanOut;
 import org.example.MigrationTool.MigrationTool;
+import org.example.Utils.PropertiesUtils;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Spec;
 
 import java.sql.SQLException;
+import java.util.List;
 /**
  * A CLI Command to apply all available migrations.
+ * With target URLs or schemas (options or {@code migration.targets}/{@code migration.schemas})
+ * every target is migrated concurrently through {@link MigrationFanOut}.
  */
 @Slf4j
 @Command(name = "migrate", description = "Apply all available migrations")
 public class MigrateCommand implements Runnable{
     private final MigrationTool migrationTool;
+    private final PropertiesUtils config;
+
+    @Option(names = {"-t", "--targets"}, split = ",", description = "JDBC URLs of the databases to migrate concurrently")
+    private List<String> targets;
+
+    @Option(names = {"-s", "--schemas"}, split = ",", description = "Schemas to migrate concurrently (through search_path)")
+    private List<String> schemas;
+
+    @Spec
+    private CommandSpec spec;
+
+    @Option(names = {"-p", "--parallelism"}, description = "Number of targets migrated at the same time")
+    private Integer parallelism;
 
     /**
      * Executes the migration process.
      *
      * @throws SQLException if a database access error occurs during migration
      */
-    public MigrateCommand(MigrationTool migrationTool) {
+    public MigrateCommand(MigrationTool migrationTool, PropertiesUtils config) {
         this.migrationTool = migrationTool;
+        this.config = config;
     }
     @Override
     public void run() {
+        List<String> targetUrls = targets != null ? targets : config.getTargetUrls();
+        List<String> targetSchemas = schemas != null ? schemas : config.getTargetSchemas();
+        if (!targetUrls.isEmpty() || !targetSchemas.isEmpty()) {
+            runFanOut(targetUrls, targetSchemas);
+            return;
+        }
         try {
             migrationTool.migrate();
         } catch (SQLException e){
             log.error("Error during migration: " + e.getMessage());
         }
     }
-}
 
+    private void runFanOut(List<String> targetUrls, List<String> targetSchemas) {
+        if (parallelism != null && parallelism < 1) {
+            throw new ParameterException(spec.commandLine(), "--parallelism must be a positive number: " + parallelism);
+        }
+        MigrationFanOut fanOut = new MigrationFanOut(config,
+                parallelism != null ? parallelism : config.getFanOutParallelism());
+        try {
+            FanOutSummary summary = fanOut.migrate(MigrationFanOut.targets(targetUrls, targetSchemas, config));
+            if (summary.getFailed() > 0) {
+                log.error("Fan-out migration failed for " + summary.getFailed() + " of " + summary.getTotal() + " targets");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Fan-out migration interrupted");
+        }
+    }
+}
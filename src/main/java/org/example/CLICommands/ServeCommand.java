@@ -0,0 +1,49 @@
+package org.example.CLICommands;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.DBConnectionManager.ConnectionManager;
+import org.example.MigrationTool.MigrationServer;
+import org.example.Utils.PropertiesUtils;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+/**
+ * CLI Command to run the migration tool as a daemon serving status, migrate and rollback over local HTTP.
+ * Runs until the process is stopped.
+ */
+@Command(name = "serve", description = "Serve status, migrate and rollback over a local HTTP API")
+@Slf4j
+public class ServeCommand implements Runnable {
+
+    private final ConnectionManager connectionManager;
+    private final PropertiesUtils config;
+
+    @Option(names = {"--port"}, description = "Port to listen on (default: serve.port)")
+    private Integer port;
+
+    public ServeCommand(ConnectionManager connectionManager, PropertiesUtils config) {
+        this.connectionManager = connectionManager;
+        this.config = config;
+    }
+
+    @Override
+    public void run() {
+        MigrationServer server = new MigrationServer(connectionManager, config);
+        CountDownLatch stopped = new CountDownLatch(1);
+        try {
+            server.start(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                stopped.countDown();
+            }));
+            stopped.await();
+        } catch (IOException | IllegalStateException e) {
+            log.error("Error starting the server: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.close();
+        }
+    }
+}
@@ -3,27 +3,40 @@ package org.example.CLICommands;
 import lombok.extern.slf4j.Slf4j;
 import org.example.MigrationTool.MigrationTool;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
 
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.concurrent.Callable;
 /**
  * CLI Command to display the current status of the database migrations.
+ * Exits with status 1 if the status cannot be fetched.
  */
 @Command(name = "status", description = "Show current database status")
 @Slf4j
-public class StatusCommand implements Runnable {
+public class StatusCommand implements Callable<Integer> {
 
     private final MigrationTool migrationTool;
 
+    @Option(names = {"--format"}, defaultValue = "text", description = "Output format: text or json")
+    private String format;
+
+    @Option(names = {"--limit"}, defaultValue = "-1",
+            description = "Maximum number of versions listed per section, 0 for the counts only (default: all)")
+    private int limit;
+
     public StatusCommand(MigrationTool migrationTool) {
         this.migrationTool = migrationTool;
     }
 
     @Override
-    public void run() {
+    public Integer call() {
         try {
-            migrationTool.status();
-        } catch (SQLException e) {
+            migrationTool.status(format, limit);
+            return 0;
+        } catch (SQLException | IOException | IllegalArgumentException e) {
           log.error("Error fetching status: " + e.getMessage());
+          return 1;
         }
     }
 }
@@ -0,0 +1,50 @@
+package org.example.CLICommands;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.MigrationReport.ValidationResult;
+import org.example.MigrationTool.MigrationTool;
+import picocli.CommandLine.Command;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Callable;
+/**
+ * CLI Command to check that applied migrations were not edited or removed afterwards.
+ * Exits with status 1 if drift is detected.
+ */
+@Command(name = "validate", description = "Compare applied migrations with their scripts")
+@Slf4j
+public class ValidateCommand implements Callable<Integer> {
+
+    private final MigrationTool migrationTool;
+
+    public ValidateCommand(MigrationTool migrationTool) {
+        this.migrationTool = migrationTool;
+    }
+
+    @Override
+    public Integer call() {
+        try {
+            ValidationResult result = migrationTool.validate();
+            System.out.println("Validated migrations: " + result.getChecked());
+            print("Changed after being applied:", result.getMismatched());
+            print("Applied but missing a script:", result.getMissing());
+            print("Applied without a checksum (not verified):", result.getUnverified());
+            return result.isValid() ? 0 : 1;
+        } catch (SQLException | IOException e) {
+            log.error("Error during validation: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static void print(String title, List<String> versions) {
+        if (versions.isEmpty()) {
+            return;
+        }
+        System.out.println(title);
+        for (String version : versions) {
+            System.out.println("- " + version);
+        }
+    }
+}
@@ -6,19 +6,83 @@ import org.example.Utils.PropertiesUtils;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 /**
  * Manages the database connection.
+ * Besides opening dedicated connections it provides a small bounded {@link ConnectionPool}
+ * for concurrent work such as fan-out, parallel migrations and the lock heartbeat.
  */
 @RequiredArgsConstructor
-public class ConnectionManager {
+public class ConnectionManager implements AutoCloseable {
     private final PropertiesUtils config;
+    private ConnectionPool pool;
     /**
      * Establishes a connection to the database using the provided configuration.
+     * If {@code db.schema} is configured, it becomes the current schema of the connection.
      *
      * @return a {@link Connection} to the database
      * @throws SQLException if a database access error occurs
      */
     public Connection connect() throws SQLException {
-        return DriverManager.getConnection(config.getUrl(), config.getUsername(), config.getPassword());
+        Properties info = new Properties();
+        if (config.getUsername() != null) {
+            info.setProperty("user", config.getUsername());
+        }
+        if (config.getPassword() != null) {
+            info.setProperty("password", config.getPassword());
+        }
+        if (config.getUrl().startsWith("jdbc:postgresql:") && config.isRewriteBatchedInserts()) {
+            // lets pgjdbc collapse batched INSERTs into multi-row statements
+            info.setProperty("reWriteBatchedInserts", "true");
+        }
+        Connection connection = DriverManager.getConnection(config.getUrl(), info);
+        if (config.getSchema() != null) {
+            // pgjdbc turns this into SET search_path with a quoted identifier
+            connection.setSchema(config.getSchema());
+        }
+        return connection;
+    }
+    /**
+     * Borrows a connection from the pool. Closing the connection returns it to the pool.
+     *
+     * @return a pooled {@link Connection} to the database
+     * @throws SQLException if no connection becomes available in time or a database access error occurs
+     */
+    public Connection borrow() throws SQLException {
+        return getPool().borrow();
+    }
+    /**
+     * Returns the connection pool of this manager, creating and warming it up on first use.
+     * Its size is configured with {@code db.pool.max.size}, {@code db.pool.min.idle},
+     * {@code db.pool.idle.timeout.ms} and {@code db.pool.borrow.timeout.ms}.
+     *
+     * @return the connection pool
+     * @throws SQLException if the pool cannot be warmed up
+     */
+    public synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null) {
+            pool = new ConnectionPool(this::connect, config.getPoolMaxSize(), config.getPoolMinIdle(),
+                    config.getPoolIdleTimeout(), config.getPoolBorrowTimeout());
+            pool.warmUp();
+        }
+        return pool;
+    }
+    /**
+     * Returns the metrics of the connection pool (active, idle, wait time).
+     *
+     * @return the pool metrics, or null if the pool has not been used
+     */
+    public synchronized PoolMetrics getPoolMetrics() {
+        return pool != null ? pool.getMetrics() : null;
+    }
+    /**
+     * Closes the connection pool, if one was created.
+     */
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
     }
 }
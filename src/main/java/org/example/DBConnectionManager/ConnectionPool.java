@@ -0,0 +1,277 @@
+package org.example.DBConnectionManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+/**
+ * A small bounded pool of database connections.
+ * Connections are validated when borrowed, idle connections above the minimum are evicted after the idle timeout,
+ * and the minimum number of idle connections is opened up front. Borrowed connections are proxies whose
+ * {@code close()} hands the physical connection back to the pool with auto-commit restored.
+ */
+@Slf4j
+public class ConnectionPool implements AutoCloseable {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /**
+     * Opens a new physical connection.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final int minIdle;
+    private final Duration idleTimeout;
+    private final Duration borrowTimeout;
+    private final Semaphore permits;
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
+    private record IdleConnection(Connection connection, long idleSince) {
+    }
+
+    public ConnectionPool(ConnectionFactory factory, int maxSize, int minIdle, Duration idleTimeout, Duration borrowTimeout) {
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(minIdle, maxSize);
+        this.idleTimeout = idleTimeout;
+        this.borrowTimeout = borrowTimeout;
+        this.permits = new Semaphore(maxSize, true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("connection-pool-evictor").factory());
+        long interval = Math.max(1_000, idleTimeout.toMillis() / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens the minimum number of idle connections, so the first borrowers do not pay for connection setup.
+     *
+     * @throws SQLException if a connection cannot be opened
+     */
+    public void warmUp() throws SQLException {
+        synchronized (idle) {
+            while (idle.size() < minIdle) {
+                idle.push(new IdleConnection(newConnection(), System.nanoTime()));
+            }
+        }
+        log.debug("Connection pool warmed up with {} connections", minIdle);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout when all connections are in use.
+     * The connection is returned to the pool by closing it.
+     *
+     * @return a validated connection
+     * @throws SQLException if no connection becomes available in time or a new connection cannot be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeout.toMillis()
+                        + " ms waiting for a pooled connection (max size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+        long waited = (System.nanoTime() - start) / 1_000_000;
+        totalWaitMillis.addAndGet(waited);
+        maxWaitMillis.accumulateAndGet(waited, Math::max);
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null) {
+                physical = newConnection();
+            }
+            borrowed.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the pool state and counters.
+     */
+    public PoolMetrics getMetrics() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        return PoolMetrics.builder()
+                .active(maxSize - permits.availablePermits())
+                .idle(idleCount)
+                .maxSize(maxSize)
+                .borrowed(borrowed.get())
+                .created(created.get())
+                .evicted(evicted.get())
+                .validationFailures(validationFailures.get())
+                .totalWaitMillis(totalWaitMillis.get())
+                .maxWaitMillis(maxWaitMillis.get())
+                .build();
+    }
+
+    /**
+     * Closes all idle connections. Connections still borrowed are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        synchronized (idle) {
+            for (IdleConnection idleConnection : idle) {
+                closeQuietly(idleConnection.connection());
+            }
+            idle.clear();
+        }
+    }
+
+    private Connection takeValidIdle() {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (idle) {
+                candidate = idle.poll();
+            }
+            if (candidate == null) {
+                return null;
+            }
+            try {
+                if (candidate.connection().isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    return candidate.connection();
+                }
+            } catch (SQLException e) {
+                log.debug("Pooled connection validation failed: {}", e.getMessage());
+            }
+            validationFailures.incrementAndGet();
+            closeQuietly(candidate.connection());
+        }
+    }
+
+    private Connection newConnection() throws SQLException {
+        Connection connection = factory.create();
+        created.incrementAndGet();
+        return connection;
+    }
+
+    private void giveBack(Connection physical, boolean resetSchema, String initialSchema) {
+        try {
+            if (closed || physical.isClosed()) {
+                closeQuietly(physical);
+                return;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (resetSchema) {
+                physical.setSchema(initialSchema);
+            }
+            synchronized (idle) {
+                idle.push(new IdleConnection(physical, System.nanoTime()));
+            }
+        } catch (SQLException e) {
+            log.debug("Discarding pooled connection that could not be reset: {}", e.getMessage());
+            closeQuietly(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - idleTimeout.toNanos();
+        synchronized (idle) {
+            Iterator<IdleConnection> oldestFirst = idle.descendingIterator();
+            while (idle.size() > minIdle && oldestFirst.hasNext()) {
+                IdleConnection candidate = oldestFirst.next();
+                if (candidate.idleSince() - cutoff < 0) {
+                    oldestFirst.remove();
+                    closeQuietly(candidate.connection());
+                    evicted.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean returned;
+            private boolean schemaChanged;
+            private String initialSchema;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!returned) {
+                            returned = true;
+                            giveBack(physical, schemaChanged, initialSchema);
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        if (returned) {
+                            return true;
+                        }
+                    }
+                    case "setSchema" -> {
+                        if (!schemaChanged && !returned) {
+                            // remembered lazily, so borrowers that keep the schema pay no extra round trip
+                            initialSchema = physical.getSchema();
+                            schemaChanged = true;
+                        }
+                    }
+                    default -> {
+                    }
+                }
+                if (returned) {
+                    throw new SQLException("Connection has been returned to the pool");
+                }
+                try {
+                    return method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close pooled connection: {}", e.getMessage());
+        }
+    }
+}
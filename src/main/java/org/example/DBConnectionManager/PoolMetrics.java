@@ -0,0 +1,21 @@
+package org.example.DBConnectionManager;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A snapshot of the state and counters of a {@link ConnectionPool}.
+ */
+@Data
+@Builder
+public class PoolMetrics {
+    private final int active;
+    private final int idle;
+    private final int maxSize;
+    private final long borrowed;
+    private final long created;
+    private final long evicted;
+    private final long validationFailures;
+    private final long totalWaitMillis;
+    private final long maxWaitMillis;
+}
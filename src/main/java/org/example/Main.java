@@ -2,9 +2,13 @@ package org.example;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.CLICommands.BaselineCommand;
+import org.example.CLICommands.CloneCommand;
 import org.example.CLICommands.MigrateCommand;
 import org.example.CLICommands.RollbackCommand;
+import org.example.CLICommands.ServeCommand;
 import org.example.CLICommands.StatusCommand;
+import org.example.CLICommands.ValidateCommand;
 import org.example.MigrationTool.MigrationExecutor;
 import org.example.MigrationTool.MigrationTool;
 import org.example.DBConnectionManager.ConnectionManager;
@@ -29,15 +33,19 @@ public class Main {
 
             Connection connection = connectionManager.connect();
 
-            MigrationExecutor migrationExecutor = new MigrationExecutor(connection);
-            MigrationTool migrationTool = new MigrationTool(migrationExecutor, connection, config);
+            MigrationExecutor migrationExecutor = new MigrationExecutor(connection, config);
+            MigrationTool migrationTool = new MigrationTool(migrationExecutor, connection, config, connectionManager);
             migrationExecutor.initializeSchemaTable();
             migrationExecutor.initializeLockTable();
 
 
-            cmd.addSubcommand("migrate", new MigrateCommand(migrationTool));
+            cmd.addSubcommand("migrate", new MigrateCommand(migrationTool, config));
             cmd.addSubcommand("rollback", new RollbackCommand(migrationTool));
             cmd.addSubcommand("status", new StatusCommand(migrationTool));
+            cmd.addSubcommand("validate", new ValidateCommand(migrationTool));
+            cmd.addSubcommand("baseline", new BaselineCommand(migrationTool));
+            cmd.addSubcommand("clone", new CloneCommand(config));
+            cmd.addSubcommand("serve", new ServeCommand(connectionManager, config));
 
         } catch (Exception e) {
             log.error("An error occured: ", e);
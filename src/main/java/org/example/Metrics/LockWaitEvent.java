@@ -0,0 +1,27 @@
+package org.example.Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event covering the acquisition of the migration lock, including the time spent waiting for another process.
+ */
+@Name("org.example.MigrationLockWait")
+@Label("Migration Lock Wait")
+@Category("Migration Tool")
+@Description("Acquisition of the migration lock")
+@StackTrace(false)
+public class LockWaitEvent extends Event {
+    @Label("Lock Type")
+    public String lockType;
+
+    @Label("Locked By")
+    public String lockedBy;
+
+    @Label("Acquired")
+    public boolean acquired;
+}
@@ -0,0 +1,255 @@
+package org.example.Metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process registry of the migration metrics: counters and timers (count, sum and max of durations),
+ * optionally with a single {@code status} style label. The registry is shared by all executors of the process and
+ * is dumped in the Prometheus text exposition format after a run.
+ */
+@Slf4j
+public class MetricsRegistry {
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+    public static final String FILE_NAME = "metrics.prom";
+
+    private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns the registry shared by the whole process.
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Returns the counter with the given name, creating it on first use.
+     *
+     * @param name the metric name.
+     * @param help the description written to the {@code # HELP} line.
+     * @return the counter.
+     */
+    public Counter counter(String name, String help) {
+        return counter(name, help, null, null);
+    }
+
+    /**
+     * Returns the counter with the given name and label, creating it on first use.
+     *
+     * @param name       the metric name.
+     * @param help       the description written to the {@code # HELP} line.
+     * @param labelName  the label name, or null for an unlabeled counter.
+     * @param labelValue the label value.
+     * @return the counter.
+     */
+    public Counter counter(String name, String help, String labelName, String labelValue) {
+        return (Counter) metrics.computeIfAbsent(key(name, labelName, labelValue),
+                key -> new Counter(name, help, labels(labelName, labelValue)));
+    }
+
+    /**
+     * Returns the timer with the given name, creating it on first use.
+     *
+     * @param name the metric name, conventionally ending in {@code _seconds}.
+     * @param help the description written to the {@code # HELP} line.
+     * @return the timer.
+     */
+    public Timer timer(String name, String help) {
+        return timer(name, help, null, null);
+    }
+
+    /**
+     * Returns the timer with the given name and label, creating it on first use.
+     *
+     * @param name       the metric name, conventionally ending in {@code _seconds}.
+     * @param help       the description written to the {@code # HELP} line.
+     * @param labelName  the label name, or null for an unlabeled timer.
+     * @param labelValue the label value.
+     * @return the timer.
+     */
+    public Timer timer(String name, String help, String labelName, String labelValue) {
+        return (Timer) metrics.computeIfAbsent(key(name, labelName, labelValue),
+                key -> new Timer(name, help, labels(labelName, labelValue)));
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text exposition format.
+     *
+     * @return the metrics text.
+     */
+    public String toPrometheusText() {
+        StringBuilder text = new StringBuilder();
+        List<Metric> family = new ArrayList<>();
+        for (Metric metric : metrics.values()) {
+            if (!family.isEmpty() && !family.get(0).name.equals(metric.name)) {
+                appendFamily(text, family);
+                family.clear();
+            }
+            family.add(metric);
+        }
+        if (!family.isEmpty()) {
+            appendFamily(text, family);
+        }
+        return text.toString();
+    }
+
+    // the series of one metric name; a timer's maximum is not part of the summary type, so it is written as a gauge
+    // family of its own, <name>_max, as Micrometer exposes it
+    private static void appendFamily(StringBuilder text, List<Metric> family) {
+        Metric first = family.get(0);
+        appendHeader(text, first.name, first.help, first.type());
+        for (Metric metric : family) {
+            metric.appendSamples(text);
+        }
+        if (first instanceof Timer) {
+            appendHeader(text, first.name + "_max", first.help + " (maximum)", "gauge");
+            for (Metric metric : family) {
+                ((Timer) metric).appendMax(text);
+            }
+        }
+    }
+
+    private static void appendHeader(StringBuilder text, String name, String help, String type) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Writes the metrics atomically to {@code metrics.prom} in the given directory.
+     *
+     * @param dir the directory to write to, usually the reports path.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writePrometheus(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, FILE_NAME, ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(toPrometheusText());
+        }
+        Files.move(temp, dir.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Metrics written to {}", dir.resolve(FILE_NAME));
+    }
+
+    // names sort before their labeled series, so all series of a metric are rendered together
+    private static String key(String name, String labelName, String labelValue) {
+        return labelName == null ? name : name + "\u0000" + labelName + "\u0000" + labelValue;
+    }
+
+    private static String labels(String labelName, String labelValue) {
+        if (labelName == null) {
+            return "";
+        }
+        String escaped = labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return "{" + labelName + "=\"" + escaped + "\"}";
+    }
+
+    private abstract static class Metric {
+        final String name;
+        final String help;
+        final String labels;
+
+        Metric(String name, String help, String labels) {
+            this.name = name;
+            this.help = help;
+            this.labels = labels;
+        }
+
+        abstract String type();
+
+        abstract void appendSamples(StringBuilder text);
+    }
+
+    /**
+     * A monotonically increasing count.
+     */
+    public static class Counter extends Metric {
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name, String help, String labels) {
+            super(name, help, labels);
+        }
+
+        /**
+         * Adds to the counter.
+         *
+         * @param amount the non-negative amount to add.
+         */
+        public void increment(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        String type() {
+            return "counter";
+        }
+
+        @Override
+        void appendSamples(StringBuilder text) {
+            text.append(name).append(labels).append(' ').append(value.sum()).append('\n');
+        }
+    }
+
+    /**
+     * Count, total and maximum of recorded durations, exposed as a Prometheus summary without quantiles and a
+     * {@code <name>_max} gauge.
+     */
+    public static class Timer extends Metric {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Timer(String name, String help, String labels) {
+            super(name, help, labels);
+        }
+
+        /**
+         * Records a duration.
+         *
+         * @param nanos the duration in nanoseconds.
+         */
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        String type() {
+            return "summary";
+        }
+
+        @Override
+        void appendSamples(StringBuilder text) {
+            text.append(name).append("_count").append(labels).append(' ').append(count.sum()).append('\n');
+            text.append(name).append("_sum").append(labels).append(' ').append(seconds(totalNanos.sum())).append('\n');
+        }
+
+        void appendMax(StringBuilder text) {
+            text.append(name).append("_max").append(labels).append(' ').append(seconds(maxNanos.get())).append('\n');
+        }
+
+        private static String seconds(long nanos) {
+            return Double.toString(nanos / 1_000_000_000.0);
+        }
+    }
+}
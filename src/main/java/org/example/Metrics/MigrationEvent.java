@@ -0,0 +1,42 @@
+package org.example.Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event covering the execution of one migration or rollback script.
+ */
+@Name("org.example.Migration")
+@Label("Migration")
+@Category("Migration Tool")
+@Description("Execution of a migration or rollback script")
+@StackTrace(false)
+public class MigrationEvent extends Event {
+    @Label("Version")
+    public String version;
+
+    @Label("Description")
+    public String migrationDescription;
+
+    @Label("Kind")
+    @Description("migration, rollback, backfill or data load")
+    public String kind;
+
+    @Label("Status")
+    public String status;
+
+    @Label("Statements")
+    public long statements;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Script Size")
+    @DataAmount
+    public long bytesRead;
+}
@@ -0,0 +1,36 @@
+package org.example.Metrics;
+
+import lombok.Data;
+
+/**
+ * Statistics collected while a script is executed. Filled in statement by statement, so a failed script still
+ * reports what ran before the failure.
+ */
+@Data
+public class ScriptMetrics {
+    private long statements;
+    private long rowsAffected;
+    private long bytesRead;
+    private Integer slowestStatementLine;
+    private long slowestStatementNanos;
+
+    /**
+     * Records an executed statement or statement batch.
+     *
+     * @param line       the script line the statement (or the first statement of the batch) starts at.
+     * @param count      the number of statements executed.
+     * @param rows       the number of rows affected.
+     * @param nanos      the execution time in nanoseconds.
+     */
+    public void recordStatement(int line, int count, long rows, long nanos) {
+        statements += count;
+        rowsAffected += rows;
+        if (slowestStatementLine == null || nanos > slowestStatementNanos) {
+            slowestStatementLine = line;
+            slowestStatementNanos = nanos;
+        }
+        MetricsRegistry.global()
+                .timer("migration_statement_duration_seconds", "Execution time of migration statements and batches")
+                .record(nanos);
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.Metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event covering a single statement, or a JDBC batch of statements, of a migration script.
+ */
+@Name("org.example.MigrationStatement")
+@Label("Migration Statement")
+@Category("Migration Tool")
+@Description("Execution of a statement or statement batch of a migration script")
+@StackTrace(false)
+public class StatementEvent extends Event {
+    @Label("Line")
+    @Description("Script line the statement, or the first statement of the batch, starts at")
+    public int line;
+
+    @Label("Statements")
+    public int statements;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("SQL")
+    @Description("Start of the statement text")
+    public String sql;
+}
@@ -0,0 +1,132 @@
+package org.example.MigrationFile;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A local cache of file checksums keyed by absolute path, size and modification time.
+ * A file is only read again when its size or modification time changed since the checksum was cached,
+ * so validating a long history hashes just the files edited since the last run.
+ * <p>
+ * File format: a header line {@code # checksum-cache v1} followed by one
+ * {@code path<TAB>size<TAB>mtime<TAB>crc32c} line per file.
+ */
+@Slf4j
+public class ChecksumCache {
+    public static final String FILE_NAME = "checksums.cache";
+    private static final String HEADER = "# checksum-cache v1";
+
+    private final Path file;
+    private final Map<String, Entry> entries;
+    private boolean modified;
+    private int hashedFiles;
+
+    private record Entry(long size, long modifiedMillis, String checksum) {
+    }
+
+    private ChecksumCache(Path file, Map<String, Entry> entries) {
+        this.file = file;
+        this.entries = entries;
+    }
+
+    /**
+     * Loads the cache of a cache directory. A missing or unreadable cache file yields an empty cache.
+     *
+     * @param cacheDir the cache directory, see {@code cache.path}.
+     * @return the loaded cache.
+     */
+    public static ChecksumCache load(Path cacheDir) {
+        Path file = cacheDir.resolve(FILE_NAME);
+        Map<String, Entry> entries = new HashMap<>();
+        if (Files.isRegularFile(file)) {
+            try (BufferedReader lines = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                if (!HEADER.equals(lines.readLine())) {
+                    throw new IOException("Not a checksum cache");
+                }
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    String[] fields = line.split("\t", -1);
+                    if (fields.length != 4) {
+                        throw new IOException("Malformed checksum cache line: " + line);
+                    }
+                    entries.put(fields[0], new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3]));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Ignoring unreadable checksum cache {}: {}", file, e.getMessage());
+                entries.clear();
+            }
+        }
+        return new ChecksumCache(file, entries);
+    }
+
+    /**
+     * Returns the checksum of a file, reading the file only if it is not cached with its current size and
+     * modification time.
+     *
+     * @param path the file.
+     * @return the CRC32C checksum of the file in hex.
+     * @throws IOException if the file cannot be read.
+     */
+    public String checksum(Path path) throws IOException {
+        String key = path.toAbsolutePath().normalize().toString();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modifiedMillis = attributes.lastModifiedTime().toMillis();
+        Entry cached = entries.get(key);
+        if (cached != null && cached.size() == size && cached.modifiedMillis() == modifiedMillis) {
+            return cached.checksum();
+        }
+
+        String checksum;
+        try (InputStream input = Files.newInputStream(path)) {
+            checksum = Checksums.crc32c(input);
+        }
+        hashedFiles++;
+        entries.put(key, new Entry(size, modifiedMillis, checksum));
+        modified = true;
+        return checksum;
+    }
+
+    /**
+     * Returns the number of files read by this cache instance, i.e. the cache misses.
+     */
+    public int getHashedFiles() {
+        return hashedFiles;
+    }
+
+    /**
+     * Writes the cache atomically if a checksum was added or updated.
+     *
+     * @throws IOException if the cache cannot be written.
+     */
+    public void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, FILE_NAME, ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writer.write(entry.getKey() + "\t" + entry.getValue().size() + "\t"
+                        + entry.getValue().modifiedMillis() + "\t" + entry.getValue().checksum());
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        modified = false;
+    }
+}
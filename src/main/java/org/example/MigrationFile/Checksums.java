@@ -0,0 +1,44 @@
+package org.example.MigrationFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * CRC32C checksums of migration files, as stored in the manifest and in {@code schema_version}.
+ * The checksum covers the raw bytes of the file, so it does not depend on how the script is decoded.
+ */
+public final class Checksums {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Checksums() {
+    }
+
+    /**
+     * Reads a stream to its end and returns the checksum of its bytes. The stream is not closed.
+     *
+     * @param input the stream to read.
+     * @return the CRC32C checksum in hex.
+     * @throws IOException if the stream cannot be read.
+     */
+    public static String crc32c(InputStream input) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            crc.update(buffer, 0, read);
+        }
+        return format(crc);
+    }
+
+    /**
+     * Formats the current value of a checksum the way it is stored.
+     *
+     * @param checksum the checksum, e.g. of a {@link java.util.zip.CheckedInputStream}.
+     * @return the checksum value in hex.
+     */
+    public static String format(Checksum checksum) {
+        return Long.toHexString(checksum.getValue());
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.MigrationFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Lazily opens the raw bytes of a data migration file (e.g. {@code V5__countries.csv}).
+ * The bytes are streamed to the database as they are, without decoding them into strings.
+ */
+@FunctionalInterface
+public interface DataFileSource {
+    /**
+     * Opens a stream over the file.
+     *
+     * @return a stream of the file contents; the caller is responsible for closing it.
+     * @throws IOException if the file cannot be opened.
+     */
+    InputStream open() throws IOException;
+}
@@ -2,15 +2,82 @@ package org.example.MigrationFile;
 
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 
 /**
- * Represents a migration file containing version, description, and SQL script.
+ * Represents a migration file containing version, description, and a lazy source of its SQL script.
+ * The script is not held in memory; it is streamed from its location only when the migration is executed.
+ * A {@code .csv} data migration is loaded into the table named by its description instead of being executed.
+ * A repeatable migration ({@code R__<name>.sql}) has no version; its description is its name.
  */
 
 @Data
 @Builder
 public class MigrationFile {
-    private final String version;
+    private final String version; // null for a repeatable migration
     private final String description;
-    private final String sql;
+    private final String location;
+    private final String checksum; // current checksum of a repeatable migration's script
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final SqlSource sqlSource;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final DataFileSource dataSource;
+
+    /**
+     * Opens a reader over the SQL script of this migration.
+     *
+     * @return a reader for the script; the caller is responsible for closing it.
+     * @throws IOException if the script cannot be opened.
+     */
+    public Reader openReader() throws IOException {
+        return sqlSource.open();
+    }
+
+    /**
+     * Checks whether this is a repeatable migration, re-applied whenever its script changes.
+     */
+    public boolean isRepeatable() {
+        return version == null;
+    }
+
+    /**
+     * Checks whether this is a data migration, i.e. a CSV file loaded with COPY.
+     */
+    public boolean isDataLoad() {
+        return location != null && location.endsWith(".csv");
+    }
+
+    /**
+     * Opens a stream over the raw bytes of the migration file: the rows of a data migration, or the bytes a
+     * script is decoded from when its checksum is computed.
+     *
+     * @return a stream of the file; the caller is responsible for closing it.
+     * @throws IOException if the file cannot be opened.
+     * @throws IllegalStateException if the migration has no data source.
+     */
+    public InputStream openDataStream() throws IOException {
+        if (dataSource == null) {
+            throw new IllegalStateException("Migration " + version + " has no byte source");
+        }
+        return dataSource.open();
+    }
+
+    /**
+     * Reads the directives declared in the leading comment block of the script.
+     *
+     * @return the header of the script.
+     * @throws IOException if the script cannot be read.
+     */
+    public MigrationHeader readHeader() throws IOException {
+        try (Reader reader = sqlSource.open()) {
+            return MigrationHeader.parse(reader);
+        }
+    }
 }
@@ -3,27 +3,53 @@ package org.example.MigrationFile;
 
 
 import lombok.extern.slf4j.Slf4j;
-import org.example.MigrationFile.MigrationFile;
 import org.example.Utils.PropertiesUtils;
 
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 /**
- * The MigrationFileReader class is responsible for reading migration and rollback SQL files from the filesystem.
+ * The MigrationFileReader class is responsible for reading migration and rollback SQL files.
  * It provides methods to load migration and rollback files and sort them as needed.
+ * <p>
+ * Scripts are listed through a {@link MigrationManifest}: a filesystem directory is scanned once and its manifest
+ * cached until the directory changes, while a {@code classpath:} location (scripts bundled in the jar) uses the
+ * manifest generated at package time. Script bodies are opened lazily through {@link SqlSource}.
  */
 @Slf4j
 public class MigrationFileReader {
-    PropertiesUtils config = new PropertiesUtils();
-    private final Path migrationDir = config.getMigrationsPath();
-    private final Path rollbackDir = config.getRollbacksPath();
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    private final String migrationLocation;
+    private final String rollbackLocation;
+    private final Path cacheDir;
+    private final Map<String, MigrationManifest> loadedManifests = new ConcurrentHashMap<>();
 
 
     public MigrationFileReader() {
+        this(new PropertiesUtils());
+    }
 
+    public MigrationFileReader(PropertiesUtils config) {
+        this.migrationLocation = config.getMigrationsLocation();
+        this.rollbackLocation = config.getRollbacksLocation();
+        this.cacheDir = config.getCachePath();
     }
     /**
      * Retrieves a list of migration files from the configured migrations directory.
@@ -34,20 +60,115 @@ public class MigrationFileReader {
      */
 
     public List<MigrationFile> getMigrationFiles() throws IOException {
-        DirectoryStream<Path> migrationFiles = Files.newDirectoryStream(migrationDir, "*.sql");
-        List<MigrationFile> sortedMigrations = new ArrayList<>();
-
-        for (Path file : migrationFiles) {
-            String fileName = file.getFileName().toString();
-            String version = extractVersion(fileName);
-            String description = extractDescription(fileName);
-            String sqlContent = Files.readString(file);
+        return getPendingMigrations(null);
+    }
+    /**
+     * Retrieves the migration files with a version greater than the current version, sorted by version.
+     * Files of already applied versions are filtered out by name, before any MigrationFile is created.
+     *
+     * @param currentVersion the current version of the database, or null if no migration has been applied.
+     * @return a list of MigrationFile objects representing the pending migration SQL files.
+     * @throws IOException if an I/O error occurs while listing the files.
+     */
+    public List<MigrationFile> getPendingMigrations(String currentVersion) throws IOException {
+        MigrationVersion current = currentVersion != null ? MigrationVersion.parse(currentVersion) : null;
+        List<MigrationFile> pendingMigrations = new ArrayList<>();
 
-            sortedMigrations.add(new MigrationFile(version, description, sqlContent));
+        for (MigrationManifest.Entry entry : loadManifest(migrationLocation).index().after(current)) {
+            pendingMigrations.add(toMigrationFile(migrationLocation, entry, entry.getDescription(), null));
         }
-
-        sortedMigrations.sort(Comparator.comparing(MigrationFile::getVersion));
-        return sortedMigrations;
+        return pendingMigrations;
+    }
+    /**
+     * Counts the migration scripts with a version up to and including the current version.
+     *
+     * @param currentVersion the current version of the database.
+     * @return the number of scripts the database should have applied.
+     * @throws IOException if an I/O error occurs while listing the files.
+     */
+    public int getMigrationCountUpTo(String currentVersion) throws IOException {
+        MigrationIndex<MigrationManifest.Entry> index = loadManifest(migrationLocation).index();
+        return index.size() - index.after(MigrationVersion.parse(currentVersion)).size();
+    }
+    /**
+     * Retrieves the migration files with a version up to and including the current version that are not applied,
+     * sorted by version.
+     *
+     * @param currentVersion    the current version of the database.
+     * @param appliedMigrations the versions recorded in schema_version.
+     * @return the unapplied migrations below the current version; usually empty.
+     * @throws IOException if an I/O error occurs while listing the files.
+     */
+    public List<MigrationFile> getUnappliedMigrationsUpTo(String currentVersion, List<String> appliedMigrations)
+            throws IOException {
+        MigrationIndex<MigrationManifest.Entry> index = loadManifest(migrationLocation).index();
+        List<MigrationManifest.Entry> all = index.all();
+        List<MigrationManifest.Entry> upToCurrent =
+                all.subList(0, all.size() - index.after(MigrationVersion.parse(currentVersion)).size());
+        Set<MigrationVersion> applied = new HashSet<>();
+        for (String version : appliedMigrations) {
+            applied.add(MigrationVersion.parse(version));
+        }
+        List<MigrationFile> unapplied = new ArrayList<>();
+        for (MigrationManifest.Entry entry : upToCurrent) {
+            if (!applied.contains(MigrationVersion.parse(entry.getVersion()))) {
+                unapplied.add(toMigrationFile(migrationLocation, entry, entry.getDescription(), null));
+            }
+        }
+        return unapplied;
+    }
+    /**
+     * Retrieves the repeatable migrations ({@code R__<name>.sql}) sorted by name, with the current checksum of their
+     * scripts. Scripts in a filesystem directory are hashed through the checksum cache, so unchanged scripts are
+     * not read.
+     *
+     * @param cache the checksum cache.
+     * @return a list of MigrationFile objects representing the repeatable migrations.
+     * @throws IOException if an I/O error occurs while listing or hashing the files.
+     */
+    public List<MigrationFile> getRepeatableMigrations(ChecksumCache cache) throws IOException {
+        List<MigrationFile> repeatables = new ArrayList<>();
+        for (MigrationManifest.Entry entry : loadManifest(migrationLocation).getRepeatables()) {
+            repeatables.add(toMigrationFile(migrationLocation, entry, entry.getDescription(),
+                    getMigrationChecksum(entry, cache)));
+        }
+        return repeatables;
+    }
+    /**
+     * Retrieves the newest baseline snapshot ({@code B<version>__<description>.sql}), which replaces the versioned
+     * migrations up to its version when an empty database is migrated.
+     *
+     * @return the baseline with the highest version, or null if there is none.
+     * @throws IOException if an I/O error occurs while listing the files.
+     */
+    public MigrationFile getBaseline() throws IOException {
+        List<MigrationManifest.Entry> baselines = loadManifest(migrationLocation).getBaselines();
+        if (baselines.isEmpty()) {
+            return null;
+        }
+        MigrationManifest.Entry entry = baselines.get(baselines.size() - 1);
+        return toMigrationFile(migrationLocation, entry, entry.getDescription(), null);
+    }
+    /**
+     * Retrieves the versioned migrations covered by a baseline, i.e. up to and including its version, with the
+     * current checksum of their scripts.
+     *
+     * @param baselineVersion the version of the baseline.
+     * @param cache           the checksum cache.
+     * @return the covered migrations sorted by version; empty if their scripts were removed.
+     * @throws IOException if an I/O error occurs while listing or hashing the files.
+     */
+    public List<MigrationFile> getMigrationsCoveredBy(String baselineVersion, ChecksumCache cache) throws IOException {
+        MigrationIndex<MigrationManifest.Entry> index = loadManifest(migrationLocation).index();
+        List<MigrationManifest.Entry> all = index.all();
+        List<MigrationManifest.Entry> covered =
+                all.subList(0, all.size() - index.after(MigrationVersion.parse(baselineVersion)).size());
+        List<MigrationFile> coveredMigrations = new ArrayList<>(covered.size());
+        for (MigrationManifest.Entry entry : covered) {
+            coveredMigrations.add(toMigrationFile(migrationLocation, entry, entry.getDescription(),
+                    getMigrationChecksum(entry, cache)));
+        }
+        return coveredMigrations;
     }
     /**
      * Retrieves a list of rollback files for the specified version range.
@@ -60,35 +181,184 @@ public class MigrationFileReader {
     public List<MigrationFile> getRollbackFiles(String targetVersion, String currentVersion) throws IOException {
         log.debug("Fetching rollback files for target version: " + targetVersion + ", current version: " + currentVersion);
 
-        DirectoryStream<Path> rollbackFiles = Files.newDirectoryStream(rollbackDir, "V*__rollback.sql");
-        List<MigrationFile> filteredRollbacks = new ArrayList<>();
-
-        for (Path file : rollbackFiles) {
-            String fileName = file.getFileName().toString();
-            String version = extractVersion(fileName);
-
-            // Include files with version greater than or equal to targetVersion and less than or equal to currentVersion
-            if (version.compareTo(targetVersion) >= 0 && version.compareTo(currentVersion) <= 0) {
-                log.debug("Including rollback file: " + fileName);
-                String sqlContent = Files.readString(file);
-                filteredRollbacks.add(new MigrationFile(version, "rollback", sqlContent));
+        List<MigrationManifest.Entry> rollbackEntries = new ArrayList<>();
+        for (MigrationManifest.Entry entry : loadManifest(rollbackLocation).getEntries()) {
+            String fileName = entry.getFileName();
+            if (fileName.startsWith("V") && fileName.endsWith("__rollback.sql")) {
+                rollbackEntries.add(entry);
             } else {
                 log.debug("Excluding rollback file: " + fileName);
             }
         }
 
-        // Sort rollback files in descending order to apply them in reverse order
-        filteredRollbacks.sort(Comparator.comparing(MigrationFile::getVersion).reversed());
+        // Include files with version greater than or equal to targetVersion and less than or equal to currentVersion
+        List<MigrationManifest.Entry> range = MigrationIndex.of(rollbackEntries, MigrationManifest.Entry::getVersion)
+                .range(MigrationVersion.parse(targetVersion), true, MigrationVersion.parse(currentVersion), true);
+
+        // Rollback files are applied in descending order
+        List<MigrationFile> filteredRollbacks = new ArrayList<>(range.size());
+        for (int i = range.size() - 1; i >= 0; i--) {
+            filteredRollbacks.add(toMigrationFile(rollbackLocation, range.get(i), "rollback", null));
+        }
         log.debug("Filtered and sorted rollback files: " + filteredRollbacks);
         return filteredRollbacks;
     }
+    /**
+     * Loads the manifest of the configured migrations location.
+     *
+     * @return the manifest listing the migration scripts.
+     * @throws IOException if the manifest cannot be read or the directory cannot be scanned.
+     */
+    public MigrationManifest getMigrationManifest() throws IOException {
+        return loadManifest(migrationLocation);
+    }
+    /**
+     * Returns the current checksum of a migration script. A script in a filesystem directory is hashed through the
+     * cache, so only files changed since they were last hashed are read; the manifest cache cannot be used for this,
+     * as it is not refreshed when a script is edited in place. Scripts bundled in the jar use the checksums of the
+     * manifest generated at package time.
+     *
+     * @param entry the manifest entry of the script, see {@link #getMigrationManifest()}.
+     * @param cache the checksum cache.
+     * @return the CRC32C checksum of the script in hex.
+     * @throws IOException if the script cannot be read.
+     */
+    public String getMigrationChecksum(MigrationManifest.Entry entry, ChecksumCache cache) throws IOException {
+        if (migrationLocation.startsWith(CLASSPATH_PREFIX)) {
+            return entry.getChecksum();
+        }
+        return cache.checksum(Paths.get(migrationLocation).resolve(entry.getFileName()));
+    }
+    /**
+     * Computes a fingerprint of the migration set: the names and checksums of all versioned, repeatable and baseline
+     * scripts. It changes whenever a script is added, removed, renamed or edited.
+     *
+     * @param cache the checksum cache, so only scripts changed since they were last hashed are read.
+     * @return the SHA-256 fingerprint in hex.
+     * @throws IOException if an I/O error occurs while listing or hashing the files.
+     */
+    public String getMigrationSetFingerprint(ChecksumCache cache) throws IOException {
+        MigrationManifest manifest = loadManifest(migrationLocation);
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        for (List<MigrationManifest.Entry> entries : List.of(
+                manifest.getEntries(), manifest.getRepeatables(), manifest.getBaselines())) {
+            for (MigrationManifest.Entry entry : entries) {
+                String line = entry.getFileName() + "\t" + getMigrationChecksum(entry, cache) + "\n";
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+    /**
+     * Loads the manifest of a script location. A cached manifest of a filesystem directory is reused while the
+     * directory modification time is unchanged; otherwise the directory is rescanned and the cache rewritten.
+     * The last manifest of every location is also kept in memory by this reader.
+     *
+     * @param location a filesystem directory or a {@code classpath:} resource directory.
+     * @return the manifest describing the scripts of the location.
+     * @throws IOException if the manifest cannot be read or the directory cannot be scanned.
+     */
+    public MigrationManifest loadManifest(String location) throws IOException {
+        if (location.startsWith(CLASSPATH_PREFIX)) {
+            MigrationManifest bundled = loadedManifests.get(location);
+            if (bundled != null) {
+                return bundled;
+            }
+            String resource = classpathDirectory(location) + "/" + MigrationManifest.FILE_NAME;
+            try (Reader reader = openResource(resource)) {
+                bundled = MigrationManifest.read(reader);
+            }
+            loadedManifests.put(location, bundled);
+            return bundled;
+        }
+
+        Path dir = Paths.get(location);
+        // a long-running process keeps the last manifest in memory and only checks the directory time
+        MigrationManifest loaded = loadedManifests.get(location);
+        if (loaded != null && loaded.isCurrentFor(dir)) {
+            return loaded;
+        }
+        // an outdated manifest still provides the checksums of the scripts that did not change
+        MigrationManifest previous = loaded;
+        Path cacheFile = cacheDir.resolve(dir.getFileName() + "-"
+                + Integer.toHexString(dir.toAbsolutePath().normalize().toString().hashCode()) + ".manifest");
+        if (Files.isRegularFile(cacheFile)) {
+            try (Reader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)) {
+                MigrationManifest cached = MigrationManifest.read(reader);
+                if (cached.isCurrentFor(dir)) {
+                    loadedManifests.put(location, cached);
+                    return cached;
+                }
+                if (previous == null) {
+                    previous = cached;
+                }
+                log.debug("Manifest {} is outdated, rescanning {}", cacheFile, dir);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Ignoring unreadable manifest {}: {}", cacheFile, e.getMessage());
+            }
+        }
+
+        MigrationManifest manifest = MigrationManifest.scan(dir, previous);
+        try {
+            manifest.write(cacheFile);
+        } catch (IOException e) {
+            log.warn("Failed to cache manifest {}: {}", cacheFile, e.getMessage());
+        }
+        loadedManifests.put(location, manifest);
+        return manifest;
+    }
 
+    private MigrationFile toMigrationFile(String location, MigrationManifest.Entry entry, String description,
+                                          String checksum) {
+        SqlSource sqlSource;
+        DataFileSource dataSource;
+        String fileLocation;
+        if (location.startsWith(CLASSPATH_PREFIX)) {
+            String resource = classpathDirectory(location) + "/" + entry.getFileName();
+            fileLocation = CLASSPATH_PREFIX + resource;
+            sqlSource = () -> openResource(resource);
+            dataSource = () -> openResourceStream(resource);
+        } else {
+            Path file = Paths.get(location).resolve(entry.getFileName());
+            fileLocation = file.toString();
+            sqlSource = () -> Files.newBufferedReader(file, StandardCharsets.UTF_8);
+            dataSource = () -> Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ));
+        }
+        return MigrationFile.builder()
+                .version(entry.getVersion())
+                .description(description)
+                .location(fileLocation)
+                .checksum(checksum)
+                .sqlSource(sqlSource)
+                .dataSource(dataSource)
+                .build();
+    }
 
-    private String extractVersion(String fileName) {
-        return fileName.split("__")[0].replace("V", "");
+    private static String classpathDirectory(String location) {
+        String dir = location.substring(CLASSPATH_PREFIX.length());
+        while (dir.startsWith("/")) {
+            dir = dir.substring(1);
+        }
+        while (dir.endsWith("/")) {
+            dir = dir.substring(0, dir.length() - 1);
+        }
+        return dir;
+    }
+
+    private Reader openResource(String resource) throws IOException {
+        return new BufferedReader(new InputStreamReader(openResourceStream(resource), StandardCharsets.UTF_8));
     }
 
-    private String extractDescription(String fileName) {
-        return fileName.split("__")[1].replace(".sql", "");
+    private InputStream openResourceStream(String resource) throws IOException {
+        InputStream input = getClass().getClassLoader().getResourceAsStream(resource);
+        if (input == null) {
+            throw new FileNotFoundException("Classpath resource not found: " + resource);
+        }
+        return input;
     }
 }
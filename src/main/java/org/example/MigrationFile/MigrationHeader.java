@@ -0,0 +1,180 @@
+package org.example.MigrationFile;
+
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Directives declared in the leading comment block of a migration script, one per line:
+ * <pre>
+ * -- @depends: 3, 5
+ * -- @transaction: none
+ * -- @lock_timeout: 5s
+ * -- @statement_timeout: 10min
+ * -- @type: backfill
+ * </pre>
+ * Only the comment lines before the first statement are read, so parsing a header never reads the script body.
+ */
+@Getter
+public class MigrationHeader {
+    public static final MigrationHeader EMPTY = new MigrationHeader(Map.of());
+    // a PostgreSQL duration, e.g. 500ms, 5s, 10min; the unit defaults to milliseconds
+    private static final Pattern TIMEOUT = Pattern.compile("\\d+\\s*(us|ms|s|min|h|d)?", Pattern.CASE_INSENSITIVE);
+
+    private final Map<String, String> directives;
+
+    private MigrationHeader(Map<String, String> directives) {
+        this.directives = Collections.unmodifiableMap(directives);
+    }
+
+    /**
+     * Reads the directives from the leading comment lines of a script.
+     *
+     * @param script the reader supplying the script; it is not closed.
+     * @return the parsed header.
+     * @throws IOException if the script cannot be read.
+     * @throws IllegalArgumentException if a directive is malformed.
+     */
+    public static MigrationHeader parse(Reader script) throws IOException {
+        BufferedReader lines = script instanceof BufferedReader buffered ? buffered : new BufferedReader(script);
+        Map<String, String> directives = new LinkedHashMap<>();
+        String line;
+        while ((line = lines.readLine()) != null) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!trimmed.startsWith("--")) {
+                break;
+            }
+            String comment = trimmed.substring(2).strip();
+            if (!comment.startsWith("@")) {
+                continue;
+            }
+            int colon = comment.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Malformed migration directive, expected '-- @name: value': " + line);
+            }
+            directives.put(comment.substring(1, colon).strip().toLowerCase(), comment.substring(colon + 1).strip());
+        }
+        return new MigrationHeader(directives);
+    }
+
+    /**
+     * Returns the value of a directive.
+     *
+     * @param name the directive name, without the leading {@code @}.
+     * @return the value, or null if the directive is not declared.
+     */
+    public String get(String name) {
+        return directives.get(name);
+    }
+
+    /**
+     * Checks whether the script declares its dependencies with {@code @depends}.
+     */
+    public boolean declaresDependencies() {
+        return directives.containsKey("depends");
+    }
+
+    /**
+     * Returns the versions listed in the {@code @depends} directive.
+     *
+     * @return the declared dependency versions; empty if none are declared.
+     */
+    public List<String> getDependencies() {
+        String value = directives.get("depends");
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::strip)
+                .filter(version -> !version.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Checks whether the script is a chunked data backfill ({@code @type: backfill}).
+     */
+    public boolean isBackfill() {
+        return "backfill".equalsIgnoreCase(directives.get("type"));
+    }
+
+    /**
+     * Returns the numeric value of a directive.
+     *
+     * @param name         the directive name, without the leading {@code @}.
+     * @param defaultValue the value used if the directive is not declared.
+     * @return the declared value, or the default.
+     * @throws IllegalArgumentException if the value is not a number.
+     */
+    public long getLong(String name, long defaultValue) {
+        String value = directives.get(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("@" + name + " must be a number: " + value, e);
+        }
+    }
+
+    /**
+     * Checks whether the script runs inside a transaction. Scripts declaring {@code @transaction: none}
+     * (e.g. {@code CREATE INDEX CONCURRENTLY}) run in auto-commit mode instead.
+     *
+     * @return false if the script is marked as non-transactional.
+     * @throws IllegalArgumentException if the directive has an unknown value.
+     */
+    public boolean isTransactional() {
+        String value = directives.get("transaction");
+        if (value == null || value.equalsIgnoreCase("required")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("none")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Invalid @transaction value, expected 'none' or 'required': " + value);
+    }
+
+    /**
+     * Returns the {@code lock_timeout} the script runs with.
+     *
+     * @return the timeout as a PostgreSQL duration, or null to keep the session setting.
+     * @throws IllegalArgumentException if the value is not a duration.
+     */
+    public String getLockTimeout() {
+        return timeout("lock_timeout");
+    }
+
+    /**
+     * Returns the {@code statement_timeout} the script runs with.
+     *
+     * @return the timeout as a PostgreSQL duration, or null to keep the session setting.
+     * @throws IllegalArgumentException if the value is not a duration.
+     */
+    public String getStatementTimeout() {
+        return timeout("statement_timeout");
+    }
+
+    private String timeout(String name) {
+        String value = directives.get(name);
+        if (value == null) {
+            return null;
+        }
+        // the value is inlined into a SET statement, so only plain durations are accepted
+        if (!TIMEOUT.matcher(value).matches()) {
+            throw new IllegalArgumentException("Invalid @" + name + " value, expected a duration like 5s: " + value);
+        }
+        return value.replaceAll("\\s+", "");
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.MigrationFile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * An immutable index of items sorted by {@link MigrationVersion}.
+ * Versions are kept in a sorted array, so pending and range lookups are binary searches
+ * returning views of the sorted items instead of scans of the whole history.
+ *
+ * @param <T> the type of the indexed items
+ */
+public class MigrationIndex<T> {
+    private final MigrationVersion[] versions;
+    private final List<T> items;
+
+    private MigrationIndex(MigrationVersion[] versions, List<T> items) {
+        this.versions = versions;
+        this.items = items;
+    }
+
+    /**
+     * Builds an index over the given items.
+     *
+     * @param items   the items to index, in any order.
+     * @param version extracts the version string of an item.
+     * @param <T>     the type of the indexed items.
+     * @return the index.
+     * @throws IllegalStateException if two items share a version.
+     */
+    public static <T> MigrationIndex<T> of(List<T> items, Function<T, String> version) {
+        int size = items.size();
+        MigrationVersion[] parsed = new MigrationVersion[size];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            parsed[i] = MigrationVersion.parse(version.apply(items.get(i)));
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> parsed[i]));
+
+        MigrationVersion[] versions = new MigrationVersion[size];
+        List<T> sorted = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            versions[i] = parsed[order[i]];
+            sorted.add(items.get(order[i]));
+            if (i > 0 && versions[i].equals(versions[i - 1])) {
+                throw new IllegalStateException("Duplicate migration version: " + versions[i]);
+            }
+        }
+        return new MigrationIndex<>(versions, Collections.unmodifiableList(sorted));
+    }
+
+    /**
+     * Returns all items, sorted by version.
+     */
+    public List<T> all() {
+        return items;
+    }
+
+    /**
+     * Returns the items with a version greater than the given one, sorted by version.
+     *
+     * @param version the exclusive lower bound, or null for all items.
+     * @return a view of the matching items.
+     */
+    public List<T> after(MigrationVersion version) {
+        if (version == null) {
+            return items;
+        }
+        return items.subList(upperBound(version), items.size());
+    }
+
+    /**
+     * Returns the items with a version between the given bounds, sorted by version.
+     *
+     * @param from          the lower bound.
+     * @param fromInclusive whether an item with the lower bound version is included.
+     * @param to            the upper bound.
+     * @param toInclusive   whether an item with the upper bound version is included.
+     * @return a view of the matching items; empty if the range is empty.
+     */
+    public List<T> range(MigrationVersion from, boolean fromInclusive, MigrationVersion to, boolean toInclusive) {
+        int start = fromInclusive ? lowerBound(from) : upperBound(from);
+        int end = toInclusive ? upperBound(to) : lowerBound(to);
+        return start < end ? items.subList(start, end) : List.of();
+    }
+
+    /**
+     * Returns the item with exactly the given version.
+     *
+     * @param version the version to look up.
+     * @return the item, or null if the version is not indexed.
+     */
+    public T get(MigrationVersion version) {
+        int index = Arrays.binarySearch(versions, version);
+        return index >= 0 ? items.get(index) : null;
+    }
+
+    /**
+     * Returns the position of the item with exactly the given version in {@link #all()}.
+     *
+     * @param version the version to look up.
+     * @return the position of the item, or -1 if the version is not indexed.
+     */
+    public int indexOf(MigrationVersion version) {
+        int index = Arrays.binarySearch(versions, version);
+        return index >= 0 ? index : -1;
+    }
+
+    public int size() {
+        return versions.length;
+    }
+
+    // first position whose version is >= the given one
+    private int lowerBound(MigrationVersion version) {
+        int low = 0;
+        int high = versions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (versions[mid].compareTo(version) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // first position whose version is > the given one
+    private int upperBound(MigrationVersion version) {
+        int low = 0;
+        int high = versions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (versions[mid].compareTo(version) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,298 @@
+package org.example.MigrationFile;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact index of the scripts in a migration directory: version, description, file name, size and checksum.
+ * The manifest is written at package time for scripts bundled in the jar, and cached on the first scan of a
+ * filesystem directory, so planning a run needs one read instead of a directory scan. When the directory changes,
+ * the rescan reuses the checksums of scripts whose size and modification time are unchanged.
+ * <p>
+ * File format: a header line {@code # migration-manifest v5<TAB>directory<TAB>directory mtime} followed by one
+ * {@code version<TAB>description<TAB>file name<TAB>size<TAB>mtime<TAB>crc32c} line per script, sorted by version, one line
+ * with an empty version per repeatable {@code R__<name>.sql} script, sorted by name, and one line with the version
+ * prefixed by {@code B} per baseline {@code B<version>__<description>.sql} script.
+ */
+@Slf4j
+@Getter
+public class MigrationManifest {
+    public static final String FILE_NAME = "migrations.manifest";
+    // v2 added .csv data migrations, v3 repeatable migrations, v4 baselines, v5 script mtimes; older cached
+    // manifests are rebuilt
+    private static final String HEADER = "# migration-manifest v5";
+    private static final String REPEATABLE_PREFIX = "R__";
+    private static final String BASELINE_PREFIX = "B";
+
+    private final String directory;
+    private final long directoryModified;
+    private final List<Entry> entries;
+    private final List<Entry> repeatables;
+    private final List<Entry> baselines;
+    @Getter(AccessLevel.NONE)
+    private MigrationIndex<Entry> index;
+
+    private MigrationManifest(String directory, long directoryModified, List<Entry> entries, List<Entry> repeatables,
+                              List<Entry> baselines) {
+        this.directory = directory;
+        this.directoryModified = directoryModified;
+        this.entries = entries;
+        this.repeatables = repeatables;
+        this.baselines = baselines;
+    }
+
+    /**
+     * A single script listed in the manifest.
+     */
+    @Data
+    @Builder
+    public static class Entry {
+        private final String version; // null for a repeatable migration
+        private final String description;
+        private final String fileName;
+        private final long size;
+        private final long modifiedMillis; // zero in bundled manifests
+        private final String checksum;
+    }
+
+    /**
+     * Generates the manifests bundled into the jar. Invoked by the build for every given directory.
+     *
+     * @param args the directories to index; a manifest is written into each of them.
+     * @throws IOException if a directory cannot be scanned or the manifest cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        for (String arg : args) {
+            Path dir = Paths.get(arg);
+            if (!Files.isDirectory(dir)) {
+                log.warn("Skipping manifest generation, directory not found: {}", dir);
+                continue;
+            }
+            // bundled manifests are never checked against a directory, so no build path is recorded
+            MigrationManifest scanned = scan(dir, null);
+            MigrationManifest manifest = new MigrationManifest("", 0L, withoutModified(scanned.getEntries()),
+                    withoutModified(scanned.getRepeatables()), withoutModified(scanned.getBaselines()));
+            manifest.write(dir.resolve(FILE_NAME));
+            log.info("Wrote {} with {} entries", dir.resolve(FILE_NAME), manifest.getEntries().size());
+        }
+    }
+
+    /**
+     * Scans a directory for {@code *.sql} scripts named {@code V<version>__<description>.sql}, {@code *.csv}
+     * data migrations named {@code V<version>__<table>.csv}, repeatable scripts named {@code R__<name>.sql} and
+     * baseline snapshots named {@code B<version>__<description>.sql}. Scripts listed in the previous manifest of the
+     * directory with the same size and modification time keep their checksum without being read.
+     *
+     * @param dir      the directory to scan.
+     * @param previous the last manifest of the directory, or null to hash every script.
+     * @return a manifest of the directory, sorted by version.
+     * @throws IOException if the directory or one of its scripts cannot be read.
+     */
+    public static MigrationManifest scan(Path dir, MigrationManifest previous) throws IOException {
+        long modified = Files.getLastModifiedTime(dir).toMillis();
+        Map<String, Entry> known = new HashMap<>();
+        if (previous != null && previous.getDirectory().equals(dir.toAbsolutePath().normalize().toString())) {
+            for (List<Entry> list : List.of(previous.getEntries(), previous.getRepeatables(), previous.getBaselines())) {
+                for (Entry entry : list) {
+                    known.put(entry.getFileName(), entry);
+                }
+            }
+        }
+        int hashed = 0;
+        List<Entry> entries = new ArrayList<>();
+        List<Entry> repeatables = new ArrayList<>();
+        List<Entry> baselines = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.{sql,csv}")) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                if (!fileName.contains("__")) {
+                    log.debug("Skipping file without a version prefix: {}", fileName);
+                    continue;
+                }
+                boolean repeatable = fileName.startsWith(REPEATABLE_PREFIX);
+                boolean baseline = fileName.startsWith(BASELINE_PREFIX);
+                if ((repeatable || baseline) && !fileName.endsWith(".sql")) {
+                    log.debug("Skipping repeatable or baseline migration that is not a SQL script: {}", fileName);
+                    continue;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                long modifiedMillis = attributes.lastModifiedTime().toMillis();
+                Entry previousEntry = known.get(fileName);
+                String checksum;
+                if (previousEntry != null && previousEntry.getSize() == attributes.size()
+                        && previousEntry.getModifiedMillis() == modifiedMillis) {
+                    checksum = previousEntry.getChecksum();
+                } else {
+                    checksum = checksum(file);
+                    hashed++;
+                }
+                (repeatable ? repeatables : baseline ? baselines : entries).add(Entry.builder()
+                        .version(repeatable ? null : extractVersion(fileName))
+                        .description(extractDescription(fileName))
+                        .fileName(fileName)
+                        .size(attributes.size())
+                        .modifiedMillis(modifiedMillis)
+                        .checksum(checksum)
+                        .build());
+            }
+        }
+        log.debug("Scanned {}: hashed {} of {} scripts", dir, hashed, entries.size() + repeatables.size() + baselines.size());
+        entries.sort(Comparator.comparing(entry -> MigrationVersion.parse(entry.getVersion())));
+        repeatables.sort(Comparator.comparing(Entry::getDescription));
+        baselines.sort(Comparator.comparing(entry -> MigrationVersion.parse(entry.getVersion())));
+        return new MigrationManifest(dir.toAbsolutePath().normalize().toString(), modified, entries, repeatables,
+                baselines);
+    }
+
+    /**
+     * Reads a manifest previously written by {@link #write(Path)}.
+     *
+     * @param reader the reader supplying the manifest.
+     * @return the parsed manifest.
+     * @throws IOException if the manifest cannot be read or is malformed.
+     */
+    public static MigrationManifest read(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        String header = lines.readLine();
+        if (header == null || !header.split("\t", -1)[0].equals(HEADER)) {
+            throw new IOException("Not a migration manifest");
+        }
+        String[] headerFields = header.split("\t", -1);
+        String directory = headerFields.length > 1 ? headerFields[1] : "";
+        long modified = headerFields.length > 2 ? Long.parseLong(headerFields[2]) : 0L;
+
+        List<Entry> entries = new ArrayList<>();
+        List<Entry> repeatables = new ArrayList<>();
+        List<Entry> baselines = new ArrayList<>();
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 6) {
+                throw new IOException("Malformed manifest line: " + line);
+            }
+            boolean repeatable = fields[0].isEmpty();
+            boolean baseline = fields[0].startsWith(BASELINE_PREFIX);
+            (repeatable ? repeatables : baseline ? baselines : entries).add(Entry.builder()
+                    .version(repeatable ? null : baseline ? fields[0].substring(BASELINE_PREFIX.length()) : fields[0])
+                    .description(fields[1])
+                    .fileName(fields[2])
+                    .size(Long.parseLong(fields[3]))
+                    .modifiedMillis(Long.parseLong(fields[4]))
+                    .checksum(fields[5])
+                    .build());
+        }
+        return new MigrationManifest(directory, modified, entries, repeatables, baselines);
+    }
+
+    /**
+     * Returns the entries indexed by version, built on first use.
+     *
+     * @return the version index of the entries.
+     * @throws IllegalStateException if two entries share a version.
+     */
+    public synchronized MigrationIndex<Entry> index() {
+        if (index == null) {
+            index = MigrationIndex.of(entries, Entry::getVersion);
+        }
+        return index;
+    }
+
+    /**
+     * Writes the manifest atomically to the given file.
+     *
+     * @param file the manifest file to write.
+     * @throws IOException if the manifest cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER + "\t" + directory + "\t" + directoryModified);
+            writer.newLine();
+            for (Entry entry : entries) {
+                writeEntry(writer, entry.getVersion(), entry);
+            }
+            for (Entry entry : repeatables) {
+                writeEntry(writer, "", entry);
+            }
+            for (Entry entry : baselines) {
+                writeEntry(writer, BASELINE_PREFIX + entry.getVersion(), entry);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeEntry(BufferedWriter writer, String version, Entry entry) throws IOException {
+        writer.write(version + "\t" + entry.getDescription() + "\t" + entry.getFileName()
+                + "\t" + entry.getSize() + "\t" + entry.getModifiedMillis() + "\t" + entry.getChecksum());
+        writer.newLine();
+    }
+
+    /**
+     * Checks whether this manifest still describes the given directory, based on the directory modification time.
+     * Adding, removing or renaming a script updates the directory time; editing a script in place does not.
+     *
+     * @param dir the directory the manifest was built from.
+     * @return true if the manifest can be used instead of scanning the directory.
+     * @throws IOException if the directory cannot be accessed.
+     */
+    public boolean isCurrentFor(Path dir) throws IOException {
+        return directory.equals(dir.toAbsolutePath().normalize().toString())
+                && directoryModified == Files.getLastModifiedTime(dir).toMillis();
+    }
+
+    // the modification times of a build checkout mean nothing where the jar runs
+    private static List<Entry> withoutModified(List<Entry> entries) {
+        List<Entry> bundled = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            bundled.add(Entry.builder()
+                    .version(entry.getVersion())
+                    .description(entry.getDescription())
+                    .fileName(entry.getFileName())
+                    .size(entry.getSize())
+                    .checksum(entry.getChecksum())
+                    .build());
+        }
+        return bundled;
+    }
+
+    private static String checksum(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return Checksums.crc32c(input);
+        }
+    }
+
+    private static String extractVersion(String fileName) {
+        return fileName.split("__")[0].replace("V", "").replace(BASELINE_PREFIX, "");
+    }
+
+    private static String extractDescription(String fileName) {
+        String description = fileName.split("__")[1];
+        return description.substring(0, description.lastIndexOf('.'));
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.MigrationFile;
+
+import java.util.Arrays;
+
+/**
+ * A parsed migration version made of dotted numeric segments, e.g. {@code 1.2.10}.
+ * Versions are compared segment by segment as numbers, so {@code 10} sorts after {@code 2};
+ * missing trailing segments count as zero. Underscores are accepted as separators as well.
+ */
+public final class MigrationVersion implements Comparable<MigrationVersion> {
+    private final String text;
+    private final long[] segments;
+
+    private MigrationVersion(String text, long[] segments) {
+        this.text = text;
+        this.segments = segments;
+    }
+
+    /**
+     * Parses a version string such as {@code 3}, {@code 1.2.10} or {@code V1_2}.
+     *
+     * @param version the version string; a leading {@code V} is ignored.
+     * @return the parsed version.
+     * @throws IllegalArgumentException if the version is empty or contains a non-numeric segment.
+     */
+    public static MigrationVersion parse(String version) {
+        if (version == null || version.isBlank()) {
+            throw new IllegalArgumentException("Migration version must not be empty");
+        }
+        String text = version.trim();
+        String digits = text.startsWith("V") || text.startsWith("v") ? text.substring(1) : text;
+        String[] parts = digits.split("[._]", -1);
+        // long segments, so timestamp versions such as 20240101120000 are accepted
+        long[] segments = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                segments[i] = Long.parseLong(parts[i]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid migration version: " + version, e);
+            }
+            if (segments[i] < 0) {
+                throw new IllegalArgumentException("Invalid migration version: " + version);
+            }
+        }
+        // trailing zero segments do not change the version: 1.0 equals 1
+        int length = segments.length;
+        while (length > 1 && segments[length - 1] == 0) {
+            length--;
+        }
+        return new MigrationVersion(text, Arrays.copyOf(segments, length));
+    }
+
+    @Override
+    public int compareTo(MigrationVersion other) {
+        int length = Math.max(segments.length, other.segments.length);
+        for (int i = 0; i < length; i++) {
+            long left = i < segments.length ? segments[i] : 0;
+            long right = i < other.segments.length ? other.segments[i] : 0;
+            if (left != right) {
+                return Long.compare(left, right);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MigrationVersion other && Arrays.equals(segments, other.segments);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(segments);
+    }
+
+    /**
+     * Returns the version as it was written, e.g. in a file name or the schema_version table.
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
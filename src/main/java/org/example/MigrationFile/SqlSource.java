@@ -0,0 +1,18 @@
+package org.example.MigrationFile;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Lazily opens the SQL script of a migration. Nothing is read until {@link #open()} is called.
+ */
+@FunctionalInterface
+public interface SqlSource {
+    /**
+     * Opens a reader over the script.
+     *
+     * @return a reader for the script; the caller is responsible for closing it.
+     * @throws IOException if the script cannot be opened.
+     */
+    Reader open() throws IOException;
+}
@@ -0,0 +1,15 @@
+package org.example.MigrationFile;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A single statement produced by the {@link SqlStatementSplitter}.
+ */
+@Data
+@Builder
+public class SqlStatement {
+    private final String sql;
+    private final int lineNumber; // line of the script where the statement starts
+    private final boolean copyFromStdin; // data follows the statement and is read through SqlStatementSplitter#copyData()
+}
@@ -0,0 +1,362 @@
+package org.example.MigrationFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a PostgreSQL script into single statements while reading it sequentially.
+ * String literals, quoted identifiers, comments, dollar-quoted bodies and {@code COPY ... FROM stdin}
+ * data blocks are recognised, and only the statement that is currently being built is kept in memory.
+ */
+public class SqlStatementSplitter implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_DOLLAR_TAG_LENGTH = 63;
+    private static final Pattern COPY_FROM_STDIN =
+            Pattern.compile("^COPY\\s.+\\sFROM\\s+STDIN\\b.*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private final char[] pushback = new char[MAX_DOLLAR_TAG_LENGTH + 4];
+    private int pushbackCount;
+    private int line = 1;
+    private long charsRead;
+    private CopyDataReader copyData;
+
+    public SqlStatementSplitter(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next statement of the script.
+     * Data of a preceding {@code COPY ... FROM stdin} statement that was not consumed is skipped.
+     *
+     * @return the next statement, or null when the end of the script is reached.
+     * @throws IOException if an I/O error occurs while reading the script.
+     */
+    public SqlStatement next() throws IOException {
+        if (copyData != null) {
+            copyData.skipRemaining();
+        }
+
+        StringBuilder sql = new StringBuilder();
+        int startLine = -1;
+        int c;
+        while ((c = read()) != -1) {
+            boolean started = startLine > 0;
+            if (c == '-' && consumeIf('-')) {
+                copyLineComment(started ? sql : null);
+                continue;
+            }
+            if (c == '/' && consumeIf('*')) {
+                copyBlockComment(started ? sql : null);
+                continue;
+            }
+            if (c == ';') {
+                if (started) {
+                    return finish(sql, startLine);
+                }
+                continue;
+            }
+            if (!started) {
+                if (Character.isWhitespace(c)) {
+                    continue;
+                }
+                startLine = line;
+            }
+
+            sql.append((char) c);
+            switch (c) {
+                case '\'' -> copyQuoted(sql, '\'', isEscapeStringPrefix(sql));
+                case '"' -> copyQuoted(sql, '"', false);
+                case '$' -> copyDollarQuoted(sql);
+                default -> {
+                }
+            }
+        }
+        return startLine > 0 ? finish(sql, startLine) : null;
+    }
+
+    /**
+     * Returns the data block that follows the last {@code COPY ... FROM stdin} statement.
+     * The returned reader ends at the {@code \.} terminator line (or at the end of the script).
+     *
+     * @return a reader streaming the rows of the current COPY block.
+     * @throws IllegalStateException if the last statement was not a {@code COPY ... FROM stdin}.
+     */
+    public Reader copyData() {
+        if (copyData == null) {
+            throw new IllegalStateException("The last statement is not a COPY ... FROM stdin statement");
+        }
+        return copyData;
+    }
+
+    /**
+     * Returns the number of characters read from the script so far.
+     */
+    public long getCharsRead() {
+        return charsRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private SqlStatement finish(StringBuilder sql, int startLine) throws IOException {
+        String text = sql.toString().stripTrailing();
+        boolean copyFromStdin = COPY_FROM_STDIN.matcher(text).matches();
+        if (copyFromStdin) {
+            // psql reads COPY data starting on the line after the statement
+            int c;
+            while ((c = read()) != -1 && c != '\n') {
+                // ignore the rest of the statement line
+            }
+            copyData = new CopyDataReader();
+        }
+        return SqlStatement.builder()
+                .sql(text)
+                .lineNumber(startLine)
+                .copyFromStdin(copyFromStdin)
+                .build();
+    }
+
+    private void copyLineComment(StringBuilder target) throws IOException {
+        if (target != null) {
+            target.append("--");
+        }
+        int c;
+        while ((c = read()) != -1) {
+            if (target != null) {
+                target.append((char) c);
+            }
+            if (c == '\n') {
+                return;
+            }
+        }
+    }
+
+    // PostgreSQL block comments nest
+    private void copyBlockComment(StringBuilder target) throws IOException {
+        if (target != null) {
+            target.append("/*");
+        }
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) != -1) {
+            if (target != null) {
+                target.append((char) c);
+            }
+            if (c == '*' && consumeIf('/')) {
+                depth--;
+                if (target != null) {
+                    target.append('/');
+                }
+            } else if (c == '/' && consumeIf('*')) {
+                depth++;
+                if (target != null) {
+                    target.append('*');
+                }
+            }
+        }
+    }
+
+    private void copyQuoted(StringBuilder sql, char quote, boolean backslashEscapes) throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            sql.append((char) c);
+            if (backslashEscapes && c == '\\') {
+                int escaped = read();
+                if (escaped == -1) {
+                    return;
+                }
+                sql.append((char) escaped);
+            } else if (c == quote) {
+                if (!consumeIf(quote)) {
+                    return;
+                }
+                sql.append(quote);
+            }
+        }
+    }
+
+    private void copyDollarQuoted(StringBuilder sql) throws IOException {
+        // "$" inside an identifier (a$b) or a positional parameter ($1) does not open a quote
+        if (sql.length() > 1 && isIdentifierChar(sql.charAt(sql.length() - 2))) {
+            return;
+        }
+        StringBuilder tag = new StringBuilder();
+        int c;
+        while (true) {
+            c = read();
+            if (c == '$') {
+                break;
+            }
+            boolean tagChar = c != -1 && tag.length() < MAX_DOLLAR_TAG_LENGTH
+                    && (Character.isLetter(c) || c == '_' || (!tag.isEmpty() && Character.isDigit(c)));
+            if (!tagChar) {
+                if (c != -1) {
+                    unread(c);
+                }
+                for (int i = tag.length() - 1; i >= 0; i--) {
+                    unread(tag.charAt(i));
+                }
+                return;
+            }
+            tag.append((char) c);
+        }
+
+        sql.append(tag).append('$');
+        String delimiter = "$" + tag + "$";
+        int bodyStart = sql.length();
+        while ((c = read()) != -1) {
+            sql.append((char) c);
+            if (c == '$' && sql.length() - bodyStart >= delimiter.length() && endsWith(sql, delimiter)) {
+                return;
+            }
+        }
+    }
+
+    // compares only the tail, so long dollar-quoted bodies are not searched again at every '$'
+    private static boolean endsWith(StringBuilder sql, String suffix) {
+        int offset = sql.length() - suffix.length();
+        for (int i = 0; i < suffix.length(); i++) {
+            if (sql.charAt(offset + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isEscapeStringPrefix(StringBuilder sql) {
+        int quote = sql.length() - 1;
+        if (quote < 1) {
+            return false;
+        }
+        char prefix = sql.charAt(quote - 1);
+        return (prefix == 'E' || prefix == 'e') && (quote < 2 || !isIdentifierChar(sql.charAt(quote - 2)));
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private boolean consumeIf(char expected) throws IOException {
+        int c = read();
+        if (c == expected) {
+            return true;
+        }
+        if (c != -1) {
+            unread(c);
+        }
+        return false;
+    }
+
+    private int read() throws IOException {
+        char c;
+        if (pushbackCount > 0) {
+            c = pushback[--pushbackCount];
+        } else {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+                charsRead += limit;
+            }
+            c = buffer[position++];
+        }
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private void unread(int c) {
+        pushback[pushbackCount++] = (char) c;
+        if (c == '\n') {
+            line--;
+        }
+    }
+
+    /**
+     * Streams the rows of a COPY block from the underlying script up to the {@code \.} terminator.
+     */
+    private class CopyDataReader extends Reader {
+        private boolean atLineStart = true;
+        private boolean finished;
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            int count = 0;
+            while (count < len) {
+                if (atLineStart && isTerminator()) {
+                    end();
+                    break;
+                }
+                int c = SqlStatementSplitter.this.read();
+                if (c == -1) {
+                    end();
+                    break;
+                }
+                cbuf[off + count++] = (char) c;
+                atLineStart = c == '\n';
+            }
+            return count == 0 && finished ? -1 : count;
+        }
+
+        @Override
+        public void close() {
+            // the script reader is owned by the splitter
+        }
+
+        private void skipRemaining() throws IOException {
+            char[] discard = new char[BUFFER_SIZE];
+            while (read(discard, 0, discard.length) != -1) {
+                // drain the unread COPY data
+            }
+        }
+
+        private void end() {
+            finished = true;
+            copyData = null;
+        }
+
+        private boolean isTerminator() throws IOException {
+            int first = SqlStatementSplitter.this.read();
+            if (first != '\\') {
+                if (first != -1) {
+                    unread(first);
+                }
+                return false;
+            }
+            int second = SqlStatementSplitter.this.read();
+            if (second != '.') {
+                if (second != -1) {
+                    unread(second);
+                }
+                unread(first);
+                return false;
+            }
+            int third = SqlStatementSplitter.this.read();
+            if (third == -1 || third == '\n') {
+                return true;
+            }
+            if (third == '\r' && consumeIf('\n')) {
+                return true;
+            }
+            unread(third);
+            unread(second);
+            unread(first);
+            return false;
+        }
+    }
+}
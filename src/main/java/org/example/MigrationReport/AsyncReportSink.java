@@ -0,0 +1,236 @@
+package org.example.MigrationReport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Appends reports as compact JSON lines to one run-level file, {@code <reports path>/run_<timestamp>_<pid>.ndjson}.
+ * Reports are handed to a background writer through a bounded queue; a full queue blocks the caller, so a slow
+ * disk slows the migration down instead of growing the heap. The file is flushed whenever the queue runs empty,
+ * on {@link #flush()}, and on close, which also happens in a JVM shutdown hook.
+ */
+@Slf4j
+public class AsyncReportSink implements AutoCloseable {
+    private static final Map<Path, AsyncReportSink> SHARED = new ConcurrentHashMap<>();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int MAX_DRAIN = 256;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(AsyncReportSink::closeAll, "report-sink-shutdown"));
+    }
+
+    private final Path file;
+    private final BlockingQueue<Object> queue; // Entry, or a CountDownLatch released once everything before it is written
+    private final Thread writerThread;
+    private final BufferedWriter writer;
+    // queueing holds the read lock and closing the write lock, so nothing is queued behind CLOSE, where the
+    // exited writer thread would never take it
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    private record Entry(String target, String name, MigrationReport report) {
+    }
+
+    private static final Object CLOSE = new Object();
+
+    public AsyncReportSink(Path dir, int capacity) throws IOException {
+        Files.createDirectories(dir);
+        this.file = dir.resolve("run_" + LocalDateTime.now().format(FILE_TIMESTAMP) + "_" + ProcessHandle.current().pid() + ".ndjson");
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writerThread = new Thread(this::drain, "report-writer-" + dir.getFileName());
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Returns the sink shared by all writers of a reports directory, creating it on first use.
+     *
+     * @param dir      the reports directory.
+     * @param capacity the queue capacity used if the sink is created.
+     * @return the shared sink.
+     * @throws IllegalStateException if the report file cannot be created.
+     */
+    public static AsyncReportSink shared(Path dir, int capacity) {
+        return SHARED.computeIfAbsent(dir.toAbsolutePath().normalize(), key -> {
+            try {
+                return new AsyncReportSink(key, capacity);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to create report file in " + key, e);
+            }
+        });
+    }
+
+    /**
+     * Closes all shared sinks, writing every queued report.
+     */
+    public static void closeAll() {
+        for (AsyncReportSink sink : SHARED.values()) {
+            sink.close();
+        }
+    }
+
+    /**
+     * Returns a view of this sink that tags every report with a target name, e.g. a tenant of a fan-out run.
+     *
+     * @param target the target name, or null to write untagged reports.
+     * @return a report sink writing into this sink.
+     */
+    public ReportSink forTarget(String target) {
+        return new ReportSink() {
+            @Override
+            public void write(String name, MigrationReport report) {
+                enqueue(new Entry(target, name, report));
+            }
+
+            @Override
+            public void flush() {
+                AsyncReportSink.this.flush();
+            }
+        };
+    }
+
+    /**
+     * Returns the NDJSON file the reports are appended to.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Blocks until all reports queued so far are written and flushed to the file.
+     */
+    public void flush() {
+        CountDownLatch written = new CountDownLatch(1);
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            queue.put(written);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        try {
+            written.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.put(CLOSE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        SHARED.values().remove(this);
+        log.info("Reports written to {}", file);
+    }
+
+    private void enqueue(Entry entry) {
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Report sink is closed: " + file);
+            }
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing report " + entry.name(), e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private void drain() {
+        List<Object> batch = new ArrayList<>(MAX_DRAIN);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_DRAIN - 1);
+                for (Object item : batch) {
+                    if (item instanceof Entry entry) {
+                        writeLine(entry);
+                    } else if (item instanceof CountDownLatch written) {
+                        flushWriter();
+                        written.countDown();
+                    } else if (item == CLOSE) {
+                        writer.close();
+                        return;
+                    }
+                }
+                batch.clear();
+                if (queue.isEmpty()) {
+                    flushWriter();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Failed to close report file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void writeLine(Entry entry) {
+        try {
+            ObjectNode line = objectMapper.createObjectNode();
+            if (entry.target() != null) {
+                line.put("target", entry.target());
+            }
+            line.put("report", entry.name());
+            line.setAll((ObjectNode) objectMapper.valueToTree(entry.report()));
+            writer.write(objectMapper.writeValueAsString(line));
+            writer.newLine();
+        } catch (IOException | RuntimeException e) {
+            // a lost report line must not fail the migration it describes
+            log.error("Failed to write report {} to {}: {}", entry.name(), file, e.getMessage());
+        }
+    }
+
+    private void flushWriter() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            log.error("Failed to flush report file {}: {}", file, e.getMessage());
+        }
+    }
+}
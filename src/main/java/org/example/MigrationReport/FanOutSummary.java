@@ -0,0 +1,22 @@
+package org.example.MigrationReport;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Represents the aggregate result of a fan-out migration over several targets.
+ */
+
+@Data
+@Builder
+public class FanOutSummary {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private long durationMillis;
+    private Timestamp timestamp;
+    private List<TargetReport> targets;
+}
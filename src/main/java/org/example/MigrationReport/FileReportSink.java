@@ -0,0 +1,17 @@
+package org.example.MigrationReport;
+
+/**
+ * Writes every report synchronously to its own pretty-printed JSON file, {@code <reports path>/<name>.json}.
+ */
+public class FileReportSink implements ReportSink {
+    private final String reportsPath;
+
+    public FileReportSink(String reportsPath) {
+        this.reportsPath = reportsPath;
+    }
+
+    @Override
+    public void write(String name, MigrationReport report) {
+        ReportWriter.writeReport(report, reportsPath + "/" + name + ".json");
+    }
+}
@@ -14,7 +14,16 @@ import java.sql.Timestamp;
 public class MigrationReport {
     private String version;
     private String description;
-    private String status; // "SUCCESS" or "FAILED"
+    private String status; // "SUCCESS", "FAILED" or "IN_PROGRESS" while a backfill runs
     private Timestamp timestamp;
     private String errorMessage; // Optional for failures
+    private Integer failedStatementLine; // Script line of the failed statement, optional for failures
+    private Long durationMillis;
+    private Long statementCount; // SQL scripts only
+    private Long rowsProcessed; // Rows affected by the statements, loaded or backfilled
+    private Long bytesRead; // Size of the script or data file read
+    private Integer slowestStatementLine; // SQL scripts only, script line of the slowest statement or batch
+    private Long slowestStatementMillis; // SQL scripts only
+    private Long chunksProcessed; // Backfill migrations only
+    private Double progressPercent; // Backfill migrations only, share of the key range processed
 }
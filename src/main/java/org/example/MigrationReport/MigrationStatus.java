@@ -0,0 +1,23 @@
+package org.example.MigrationReport;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Represents the status of a database: its schema_version rows merged with the migration scripts.
+ * The version lists are bounded by the requested limit, while the counts always cover the whole history.
+ */
+
+@Data
+@Builder
+public class MigrationStatus {
+    private String currentVersion; // null if no migration has been applied
+    private int appliedCount;
+    private int pendingCount;
+    private int missingCount;
+    private List<String> appliedVersions; // the most recent applied versions, ascending
+    private List<String> pendingVersions; // the next pending versions, ascending
+    private List<String> missingVersions; // applied versions without a script, ascending
+}
@@ -0,0 +1,41 @@
+package org.example.MigrationReport;
+
+import org.example.Utils.PropertiesUtils;
+
+import java.nio.file.Paths;
+
+/**
+ * Destination of migration and rollback reports.
+ * Depending on {@code reports.mode} reports are written as one JSON file each ({@code files}, the default) or
+ * appended to a run-level NDJSON file by a background writer ({@code ndjson}).
+ */
+public interface ReportSink {
+    /**
+     * Writes a report.
+     *
+     * @param name   the report name, e.g. {@code migration_3} or {@code rollback_3}.
+     * @param report the report to write.
+     */
+    void write(String name, MigrationReport report);
+
+    /**
+     * Blocks until all reports written so far are stored.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Returns the report sink configured for the given configuration.
+     * NDJSON sinks are shared by all executors writing to the same reports path.
+     *
+     * @param config the configuration providing the reports path and mode.
+     * @return the report sink.
+     */
+    static ReportSink forConfig(PropertiesUtils config) {
+        if ("ndjson".equals(config.getReportsMode())) {
+            return AsyncReportSink.shared(Paths.get(config.getReportsPath()), config.getReportsQueueCapacity())
+                    .forTarget(config.getReportsTarget());
+        }
+        return new FileReportSink(config.getReportsPath());
+    }
+}
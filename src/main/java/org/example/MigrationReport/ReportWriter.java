@@ -1,5 +1,6 @@
 package org.example.MigrationReport;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import java.io.File;
 import java.io.IOException;
@@ -8,6 +9,7 @@ import java.io.IOException;
  */
 public class ReportWriter {
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectWriter prettyWriter = objectMapper.writerWithDefaultPrettyPrinter();
     /**
      * Writes the given migration report to a specified file path in JSON format.
      *
@@ -17,9 +19,23 @@ public class ReportWriter {
      */
     public static void writeReport(MigrationReport report, String filePath) {
         try {
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(filePath), report);
+            prettyWriter.writeValue(new File(filePath), report);
         } catch (IOException e) {
             throw new RuntimeException("Failed to write report to JSON", e);
         }
     }
+    /**
+     * Writes the aggregate summary of a fan-out migration to a specified file path in JSON format.
+     *
+     * @param summary The fan-out summary to be written to the file.
+     * @param filePath The path where the summary should be written.
+     * @throws RuntimeException if there is an error while writing the summary to the file.
+     */
+    public static void writeSummary(FanOutSummary summary, String filePath) {
+        try {
+            prettyWriter.writeValue(new File(filePath), summary);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write fan-out summary to JSON", e);
+        }
+    }
 }
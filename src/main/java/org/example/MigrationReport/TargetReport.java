@@ -0,0 +1,20 @@
+package org.example.MigrationReport;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Represents the outcome of migrating one target (database or schema) in fan-out mode.
+ */
+
+@Data
+@Builder
+public class TargetReport {
+    private String target;
+    private String url;
+    private String schema;
+    private String status; // "SUCCESS" or "FAILED"
+    private String currentVersion; // Version after the run, null if unknown
+    private long durationMillis;
+    private String errorMessage; // Optional for failures
+}
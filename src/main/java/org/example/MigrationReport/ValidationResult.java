@@ -0,0 +1,28 @@
+package org.example.MigrationReport;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Represents the result of validating the applied migrations against the migration scripts.
+ */
+
+@Data
+@Builder
+public class ValidationResult {
+    private int checked;
+    private int hashedFiles; // scripts read because they were not cached with their current size and mtime
+    private long durationMillis;
+    private List<String> mismatched; // applied versions whose script was edited afterwards
+    private List<String> missing; // applied versions without a script
+    private List<String> unverified; // versions applied before checksums were recorded
+
+    /**
+     * Checks whether no applied migration was edited or removed.
+     */
+    public boolean isValid() {
+        return mismatched.isEmpty() && missing.isEmpty();
+    }
+}
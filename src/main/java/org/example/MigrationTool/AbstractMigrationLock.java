@@ -0,0 +1,153 @@
+package org.example.MigrationTool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.Metrics.LockWaitEvent;
+import org.example.Metrics.MetricsRegistry;
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+/**
+ * Base class for lock backends that adds waiting to a single lock attempt.
+ * With a zero wait timeout {@link #lock(String)} fails fast. Otherwise the attempt is retried until the timeout
+ * expires: on PostgreSQL the waiter LISTENs on a channel that the holder NOTIFYs on unlock, so it wakes up as soon
+ * as the lock is released; elsewhere it sleeps with jittered exponential backoff between attempts. The backoff
+ * also caps every LISTEN wait, which covers holders that die without notifying.
+ */
+@Slf4j
+public abstract class AbstractMigrationLock implements MigrationLock {
+    private static final long INITIAL_BACKOFF_MILLIS = 50;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+
+    protected final Connection connection;
+    private final Duration waitTimeout;
+    private final String channel;
+
+    protected AbstractMigrationLock(Connection connection, Duration waitTimeout, String channel) {
+        this.connection = connection;
+        this.waitTimeout = waitTimeout;
+        this.channel = channel;
+    }
+
+    /**
+     * Makes a single attempt to take the lock.
+     *
+     * @param lockedBy the user or process requesting the lock
+     * @return true if the lock was acquired
+     * @throws SQLException if a database error occurs
+     */
+    protected abstract boolean tryAcquire(String lockedBy) throws SQLException;
+
+    /**
+     * Releases the lock without notifying waiters.
+     *
+     * @throws SQLException if a database error occurs
+     */
+    protected abstract void release() throws SQLException;
+
+    @Override
+    public void lock(String lockedBy) throws SQLException {
+        LockWaitEvent event = new LockWaitEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean acquired = false;
+        try {
+            if (!tryAcquire(lockedBy)) {
+                if (waitTimeout.isZero() || waitTimeout.isNegative()) {
+                    log.error("Cannot acquire migration lock. Database is locked.");
+                    throw new IllegalStateException("Database is locked by another process.");
+                }
+                waitForLock(lockedBy);
+            }
+            acquired = true;
+        } finally {
+            recordLockWait(event, lockedBy, acquired, System.nanoTime() - start);
+        }
+    }
+
+    private void recordLockWait(LockWaitEvent event, String lockedBy, boolean acquired, long nanos) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.lockType = getClass().getSimpleName();
+            event.lockedBy = lockedBy;
+            event.acquired = acquired;
+            event.commit();
+        }
+        MetricsRegistry.global()
+                .timer("migration_lock_wait_seconds", "Time spent acquiring the migration lock", "acquired", String.valueOf(acquired))
+                .record(nanos);
+        log.debug("Migration lock {} after {} ms", acquired ? "acquired" : "not acquired", nanos / 1_000_000);
+    }
+
+    @Override
+    public void unlock() throws SQLException {
+        release();
+        if (isPostgres()) {
+            // delivered when the releasing transaction commits
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("NOTIFY " + channel);
+            }
+        }
+    }
+
+    private void waitForLock(String lockedBy) throws SQLException {
+        log.info("Migration lock is held by another process, waiting up to {} ms", waitTimeout.toMillis());
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        boolean listening = isPostgres() && listen("LISTEN " + channel);
+        try {
+            long backoff = INITIAL_BACKOFF_MILLIS;
+            while (true) {
+                // re-check after LISTEN so a release in between is not missed
+                if (tryAcquire(lockedBy)) {
+                    log.info("Migration lock acquired after waiting");
+                    return;
+                }
+                long remaining = Duration.ofNanos(deadline - System.nanoTime()).toMillis();
+                if (remaining <= 0) {
+                    log.error("Timed out waiting for the migration lock");
+                    throw new IllegalStateException("Timed out after " + waitTimeout.toMillis()
+                            + " ms waiting for the migration lock held by another process.");
+                }
+                long jittered = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+                long wait = Math.max(1, Math.min(remaining, jittered));
+                if (listening) {
+                    connection.unwrap(PGConnection.class).getNotifications((int) wait);
+                } else {
+                    sleep(wait);
+                }
+                backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+            }
+        } finally {
+            if (listening) {
+                listen("UNLISTEN " + channel);
+            }
+        }
+    }
+
+    private boolean listen(String sql) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            // LISTEN only takes effect on commit; never commit the caller's transaction here
+            return false;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+            return true;
+        }
+    }
+
+    private boolean isPostgres() throws SQLException {
+        return connection.isWrapperFor(PGConnection.class);
+    }
+
+    private static void sleep(long millis) throws SQLException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the migration lock", e);
+        }
+    }
+}
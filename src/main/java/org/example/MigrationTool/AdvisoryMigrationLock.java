@@ -0,0 +1,84 @@
+package org.example.MigrationTool;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+/**
+ * Migration lock backed by a PostgreSQL session-level advisory lock.
+ * Acquiring is a single {@code pg_try_advisory_lock} round trip, and the server releases the lock
+ * automatically when the session ends, so a crashed process never leaves a stale lock behind.
+ */
+@Slf4j
+public class AdvisoryMigrationLock extends AbstractMigrationLock {
+
+    private final long key;
+    private boolean held;
+
+    public AdvisoryMigrationLock(Connection connection, long key, Duration waitTimeout) {
+        super(connection, waitTimeout, "migration_lock_" + Long.toHexString(key));
+        this.key = key;
+    }
+
+    @Override
+    protected boolean tryAcquire(String lockedBy) throws SQLException {
+        log.debug("Attempting to acquire advisory lock {}...", key);
+        if (held) {
+            // advisory locks are re-entrant per session; never stack them
+            throw new IllegalStateException("Migration lock is already held by this process.");
+        }
+        try (PreparedStatement lockStmt = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            lockStmt.setLong(1, key);
+            try (ResultSet resultSet = lockStmt.executeQuery()) {
+                if (!resultSet.next() || !resultSet.getBoolean(1)) {
+                    log.debug("Advisory lock {} is held by another session", key);
+                    return false;
+                }
+            }
+        }
+        held = true;
+        log.debug("Lock acquired successfully by: " + lockedBy);
+        return true;
+    }
+
+    @Override
+    protected void release() throws SQLException {
+        log.debug("Releasing advisory lock {}...", key);
+        try (PreparedStatement unlockStmt = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            unlockStmt.setLong(1, key);
+            try (ResultSet resultSet = unlockStmt.executeQuery()) {
+                if (resultSet.next() && resultSet.getBoolean(1)) {
+                    log.debug("Lock released successfully.");
+                } else {
+                    log.warn("Lock was not held.");
+                }
+            }
+        } finally {
+            held = false;
+        }
+    }
+
+    @Override
+    public boolean isLocked() throws SQLException {
+        // a bigint advisory key is stored split into classid (high bits) and objid (low bits)
+        String checkLockSql = """
+                SELECT EXISTS (
+                    SELECT 1
+                    FROM pg_locks
+                    WHERE locktype = 'advisory' AND classid::bigint = ? AND objid::bigint = ? AND objsubid = 1 AND granted
+                )
+                """;
+        try (PreparedStatement checkLockStmt = connection.prepareStatement(checkLockSql)) {
+            checkLockStmt.setLong(1, key >>> 32);
+            checkLockStmt.setLong(2, key & 0xFFFFFFFFL);
+            try (ResultSet resultSet = checkLockStmt.executeQuery()) {
+                boolean locked = resultSet.next() && resultSet.getBoolean(1);
+                log.debug("Lock status: " + (locked ? "Locked" : "Unlocked"));
+                return locked;
+            }
+        }
+    }
+}
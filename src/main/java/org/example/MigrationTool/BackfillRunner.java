@@ -0,0 +1,276 @@
+package org.example.MigrationTool;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.example.MigrationFile.MigrationFile;
+import org.example.MigrationFile.MigrationHeader;
+import org.example.MigrationFile.SqlStatement;
+import org.example.MigrationFile.SqlStatementSplitter;
+import org.example.Utils.PropertiesUtils;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a backfill migration in key-range chunks, committing after every chunk.
+ * The script is declared with a header and uses the {@code :start} and {@code :end} placeholders for the
+ * half-open key range of a chunk:
+ * <pre>
+ * -- @type: backfill
+ * -- @backfill.table: orders
+ * -- @backfill.key: id
+ * -- @backfill.chunk.size: 10000
+ * -- @backfill.sleep.ms: 100
+ * UPDATE orders SET total = price * quantity WHERE id >= :start AND id < :end;
+ * </pre>
+ * The next key of every committed chunk is stored in the backfill_checkpoint table, so a killed run resumes after
+ * the last committed chunk. The key column must be an integer column.
+ */
+@Slf4j
+public class BackfillRunner {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)?");
+    private static final Pattern START = Pattern.compile("(?<![:\\w]):start\\b");
+    private static final Pattern END = Pattern.compile("(?<![:\\w]):end\\b");
+
+    private final Connection connection;
+    private final PropertiesUtils config;
+    @Getter
+    private Progress progress; // of the last committed chunk, null before the first one
+
+    public BackfillRunner(Connection connection, PropertiesUtils config) {
+        this.connection = connection;
+        this.config = config;
+    }
+
+    /**
+     * The progress of a backfill after a committed chunk.
+     */
+    @Data
+    @Builder
+    public static class Progress {
+        private final long minKey;
+        private final long maxKey;
+        private final long nextKey;
+        private final long rowsProcessed;
+        private final long chunksProcessed;
+
+        /**
+         * Returns the share of the key range that is processed, in percent.
+         */
+        public double getPercent() {
+            if (nextKey > maxKey) {
+                return 100.0;
+            }
+            return 100.0 * (nextKey - minKey) / ((double) maxKey - minKey + 1);
+        }
+    }
+
+    /**
+     * Runs the backfill, resuming from its checkpoint if a previous run was interrupted.
+     * The connection must not be in auto-commit mode; the current transaction is committed after every chunk.
+     *
+     * @param migrationFile the backfill migration.
+     * @param header        the header of the migration script.
+     * @param onChunk       called after every committed chunk.
+     * @return the final progress; null if the table is empty.
+     * @throws SQLException if a chunk fails; the chunks before it stay committed.
+     * @throws IOException if the script cannot be read.
+     * @throws IllegalArgumentException if the header or the script is not a valid backfill.
+     */
+    public Progress run(MigrationFile migrationFile, MigrationHeader header, Consumer<Progress> onChunk)
+            throws SQLException, IOException {
+        String version = migrationFile.getVersion();
+        String table = identifier(header, "backfill.table");
+        String key = identifier(header, "backfill.key");
+        long chunkSize = header.getLong("backfill.chunk.size", config.getBackfillChunkSize());
+        long sleepMillis = header.getLong("backfill.sleep.ms", config.getBackfillSleep());
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("@backfill.chunk.size must be a positive number");
+        }
+        List<String> statements = readStatements(migrationFile);
+
+        initializeCheckpointTable();
+        Long minKey = null;
+        Long maxKey = null;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MIN(" + key + "), MAX(" + key + ") FROM " + table)) {
+            if (resultSet.next()) {
+                long min = resultSet.getLong(1);
+                minKey = resultSet.wasNull() ? null : min;
+                long max = resultSet.getLong(2);
+                maxKey = resultSet.wasNull() ? null : max;
+            }
+        }
+        if (minKey == null || maxKey == null) {
+            log.info("Backfill {}: table {} is empty", version, table);
+            connection.commit();
+            return null;
+        }
+
+        progress = loadCheckpoint(version, minKey, maxKey);
+        connection.commit();
+        if (progress.getNextKey() > minKey) {
+            log.info("Backfill {}: resuming at {} = {} after {} rows", version, key, progress.getNextKey(),
+                    progress.getRowsProcessed());
+        }
+
+        while (progress.getNextKey() <= maxKey) {
+            long start = progress.getNextKey();
+            long end = maxKey - start < chunkSize ? maxKey + 1 : start + chunkSize;
+            long rows = executeChunk(statements, start, end);
+            progress = Progress.builder()
+                    .minKey(minKey)
+                    .maxKey(maxKey)
+                    .nextKey(end)
+                    .rowsProcessed(progress.getRowsProcessed() + rows)
+                    .chunksProcessed(progress.getChunksProcessed() + 1)
+                    .build();
+            saveCheckpoint(version, progress);
+            connection.commit();
+
+            log.info("Backfill {}: {} rows in {} chunks, {}%", version, progress.getRowsProcessed(),
+                    progress.getChunksProcessed(), String.format("%.1f", progress.getPercent()));
+            onChunk.accept(progress);
+            if (sleepMillis > 0 && progress.getNextKey() <= maxKey) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Backfill " + version + " was interrupted", e);
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Removes the checkpoint of a finished backfill. Runs in the current transaction.
+     *
+     * @param version the version of the backfill migration.
+     * @throws SQLException if the checkpoint cannot be removed.
+     */
+    public void clearCheckpoint(String version) throws SQLException {
+        try (PreparedStatement preparedStatement =
+                     connection.prepareStatement("DELETE FROM backfill_checkpoint WHERE version = ?")) {
+            preparedStatement.setString(1, version);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    // created on first use, databases without backfills never get the table
+    private void initializeCheckpointTable() throws SQLException {
+        String sql = """
+                CREATE TABLE IF NOT EXISTS backfill_checkpoint (
+                    version VARCHAR(50) PRIMARY KEY,
+                    next_key BIGINT NOT NULL,
+                    rows_processed BIGINT NOT NULL,
+                    chunks_processed BIGINT NOT NULL,
+                    updated_at TIMESTAMP NOT NULL
+                );
+                """;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private Progress loadCheckpoint(String version, long minKey, long maxKey) throws SQLException {
+        String sql = "SELECT next_key, rows_processed, chunks_processed FROM backfill_checkpoint WHERE version = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setString(1, version);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                Progress.ProgressBuilder checkpoint = Progress.builder().minKey(minKey).maxKey(maxKey).nextKey(minKey);
+                if (resultSet.next()) {
+                    checkpoint.nextKey(Math.max(minKey, resultSet.getLong("next_key")))
+                            .rowsProcessed(resultSet.getLong("rows_processed"))
+                            .chunksProcessed(resultSet.getLong("chunks_processed"));
+                }
+                return checkpoint.build();
+            }
+        }
+    }
+
+    private void saveCheckpoint(String version, Progress progress) throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String update = """
+                UPDATE backfill_checkpoint SET next_key = ?, rows_processed = ?, chunks_processed = ?, updated_at = ?
+                WHERE version = ?
+                """;
+        try (PreparedStatement preparedStatement = connection.prepareStatement(update)) {
+            preparedStatement.setLong(1, progress.getNextKey());
+            preparedStatement.setLong(2, progress.getRowsProcessed());
+            preparedStatement.setLong(3, progress.getChunksProcessed());
+            preparedStatement.setTimestamp(4, now);
+            preparedStatement.setString(5, version);
+            if (preparedStatement.executeUpdate() > 0) {
+                return;
+            }
+        }
+        String insert = """
+                INSERT INTO backfill_checkpoint (version, next_key, rows_processed, chunks_processed, updated_at)
+                VALUES (?, ?, ?, ?, ?)
+                """;
+        try (PreparedStatement preparedStatement = connection.prepareStatement(insert)) {
+            preparedStatement.setString(1, version);
+            preparedStatement.setLong(2, progress.getNextKey());
+            preparedStatement.setLong(3, progress.getRowsProcessed());
+            preparedStatement.setLong(4, progress.getChunksProcessed());
+            preparedStatement.setTimestamp(5, now);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private long executeChunk(List<String> statements, long start, long end) throws SQLException {
+        long rows = 0;
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                String chunkSql = END.matcher(START.matcher(sql).replaceAll(Long.toString(start)))
+                        .replaceAll(Long.toString(end));
+                if (!statement.execute(chunkSql)) {
+                    rows += Math.max(0, statement.getUpdateCount());
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> readStatements(MigrationFile migrationFile) throws IOException {
+        List<String> statements = new ArrayList<>();
+        boolean placeholders = false;
+        try (SqlStatementSplitter splitter = new SqlStatementSplitter(migrationFile.openReader())) {
+            SqlStatement sqlStatement;
+            while ((sqlStatement = splitter.next()) != null) {
+                if (sqlStatement.isCopyFromStdin()) {
+                    throw new IllegalArgumentException("COPY is not supported in backfill migration " + migrationFile.getVersion());
+                }
+                placeholders |= START.matcher(sqlStatement.getSql()).find() && END.matcher(sqlStatement.getSql()).find();
+                statements.add(sqlStatement.getSql());
+            }
+        }
+        // without the range every chunk would rewrite the whole table
+        if (!placeholders) {
+            throw new IllegalArgumentException("Backfill migration " + migrationFile.getVersion()
+                    + " must restrict its statements with :start and :end");
+        }
+        return statements;
+    }
+
+    private static String identifier(MigrationHeader header, String name) {
+        String value = header.get(name);
+        if (value == null || !IDENTIFIER.matcher(value).matches()) {
+            throw new IllegalArgumentException("@" + name + " must name a table or column, got: " + value);
+        }
+        return value;
+    }
+}
@@ -1,14 +1,47 @@
 package org.example.MigrationTool;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.Metrics.CountingInputStream;
+import org.example.Metrics.MetricsRegistry;
+import org.example.Metrics.MigrationEvent;
+import org.example.Metrics.ScriptMetrics;
+import org.example.Metrics.StatementEvent;
+import org.example.MigrationFile.Checksums;
+import org.example.MigrationFile.MigrationFile;
+import org.example.MigrationFile.MigrationHeader;
+import org.example.MigrationFile.MigrationVersion;
+import org.example.MigrationFile.SqlStatement;
+import org.example.MigrationFile.SqlStatementSplitter;
 import org.example.MigrationReport.MigrationReport;
 import org.example.Utils.PropertiesUtils;
-import org.example.MigrationReport.ReportWriter;
+import org.example.MigrationReport.ReportSink;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.sql.*;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
 
 /**
  * The MigrationExecutor class is responsible for executing database migrations.
@@ -16,14 +49,49 @@ import java.util.List;
  */
 
 @Slf4j
-@RequiredArgsConstructor
 public class MigrationExecutor {
+    private static final Pattern LEADING_KEYWORD = Pattern.compile("(\\w+)");
+    private static final Pattern SIMPLE_IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_CSV_HEADER_LENGTH = 64 * 1024;
+    private static final int MAX_EVENT_SQL_LENGTH = 200;
+    private static final int STATUS_FETCH_SIZE = 1000;
+    private static final Set<String> RESULT_KEYWORDS = Set.of("SELECT", "WITH", "VALUES", "TABLE", "SHOW", "EXPLAIN", "FETCH", "CALL");
+    private static final Pattern RETURNING = Pattern.compile("\\bRETURNING\\b", Pattern.CASE_INSENSITIVE);
+    // INSERT INTO <table> [(<columns>)] VALUES <rows>; group 1 is the part shared by INSERTs that can be merged
+    private static final Pattern SIMPLE_INSERT = Pattern.compile(
+            "(INSERT\\s+INTO\\s+[^\\s(]+\\s*(?:\\([^()]*\\))?\\s*VALUES)\\s*(\\(.*)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
     private final Connection connection;
-    private final PropertiesUtils config = new PropertiesUtils();
-    private final String filePath = config.getReportsPath();
+    private final PropertiesUtils config;
+    private final ReportSink reportSink;
+    private final boolean batchExecution;
+    private final int batchSize;
+    private final boolean mergeInserts;
+
+    public MigrationExecutor(Connection connection) {
+        this(connection, new PropertiesUtils());
+    }
+
+    public MigrationExecutor(Connection connection, PropertiesUtils config) {
+        this.connection = connection;
+        this.config = config;
+        this.reportSink = ReportSink.forConfig(config);
+        this.batchExecution = "batch".equals(config.getExecutionMode());
+        this.batchSize = config.getBatchSize();
+        this.mergeInserts = config.isRewriteBatchedInserts();
+    }
+    /**
+     * Blocks until the reports of this executor are stored. Only the NDJSON report mode writes in the background.
+     */
+    public void flushReports() {
+        reportSink.flush();
+    }
     /**
      * Initializes the schema_version table if it does not exist.
      * This table keeps track of applied migrations and their metadata.
+     * The checksum column is added to tables created by older versions.
      *
      * @throws SQLException if an SQL error occurs during table creation.
      */
@@ -32,16 +100,21 @@ public class MigrationExecutor {
                 CREATE TABLE IF NOT EXISTS schema_version (
                     version VARCHAR(50) PRIMARY KEY,
                     description VARCHAR(255),
-                    applied_at TIMESTAMP
+                    applied_at TIMESTAMP,
+                    checksum VARCHAR(16)
                 );
                 """;
         try (Statement statement = connection.createStatement()) {
             statement.execute(sql);
+            statement.execute("ALTER TABLE schema_version ADD COLUMN IF NOT EXISTS checksum VARCHAR(16)");
         }
     }
     /**
      * Initializes the migration_lock table if it does not exist.
      * This table is used for managing locks to prevent concurrent migrations.
+     * Lease and takeover columns are added to tables created by older versions, and a lease column without a time
+     * zone is converted. The columns are looked up first, so an up-to-date table is not altered: ALTER TABLE takes
+     * an exclusive lock on it and requires owning it.
      *
      * @throws SQLException if an SQL error occurs during table creation.
      */
@@ -51,21 +124,54 @@ public class MigrationExecutor {
                     id INT PRIMARY KEY CHECK (id = 1),
                     is_locked BOOLEAN NOT NULL,
                     locked_at TIMESTAMP,
-                    locked_by VARCHAR(255)
+                    locked_by VARCHAR(255),
+                    lease_expires_at TIMESTAMP WITH TIME ZONE,
+                    taken_over_from VARCHAR(255),
+                    taken_over_at TIMESTAMP
                 );
                 """;
         try (Statement statement = connection.createStatement()){
             statement.execute(sql);
+            Map<String, String> columns = lockTableColumns(statement);
+            String leaseType = columns.get("lease_expires_at");
+            if (leaseType == null) {
+                statement.execute("ALTER TABLE migration_lock ADD COLUMN lease_expires_at TIMESTAMP WITH TIME ZONE");
+            } else if (leaseType.equalsIgnoreCase("timestamp without time zone") || leaseType.equalsIgnoreCase("timestamp")) {
+                // leases are compared with the database clock, which is only unambiguous with a time zone
+                statement.execute("ALTER TABLE migration_lock ALTER COLUMN lease_expires_at SET DATA TYPE TIMESTAMP WITH TIME ZONE");
+            }
+            if (!columns.containsKey("taken_over_from")) {
+                statement.execute("ALTER TABLE migration_lock ADD COLUMN taken_over_from VARCHAR(255)");
+            }
+            if (!columns.containsKey("taken_over_at")) {
+                statement.execute("ALTER TABLE migration_lock ADD COLUMN taken_over_at TIMESTAMP");
+            }
         }
     }
+
+    // column name -> data type of the migration_lock table in the current schema
+    private static Map<String, String> lockTableColumns(Statement statement) throws SQLException {
+        String sql = """
+                SELECT column_name, data_type FROM information_schema.columns
+                WHERE LOWER(table_name) = 'migration_lock' AND table_schema = CURRENT_SCHEMA
+                """;
+        Map<String, String> columns = new HashMap<>();
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                columns.put(resultSet.getString(1).toLowerCase(), resultSet.getString(2));
+            }
+        }
+        return columns;
+    }
     /**
      * Retrieves a list of applied migrations, sorted by version.
+     * Versions are ordered numerically (see {@link MigrationVersion}), not as strings.
      *
      * @return a list of version strings representing the applied migrations.
      * @throws SQLException if an SQL error occurs while fetching the applied migrations.
      */
     public List<String> getAppliedMigrations() throws SQLException {
-        String sql = "SELECT version FROM schema_version ORDER BY version";
+        String sql = "SELECT version FROM schema_version";
         try (Statement statement = connection.createStatement();
              ResultSet resultSet = statement.executeQuery(sql)) {
 
@@ -73,24 +179,187 @@ public class MigrationExecutor {
             while (resultSet.next()) {
                 appliedMigrations.add(resultSet.getString("version"));
             }
+            appliedMigrations.sort(Comparator.comparing(MigrationVersion::parse));
             return appliedMigrations;
         }
     }
     /**
-     * Retrieves the current version of the database schema.
+     * Counts the rows of schema_version, i.e. the applied migrations including those covered by a baseline.
+     *
+     * @return the number of applied migrations.
+     * @throws SQLException if an SQL error occurs while counting the applied migrations.
+     */
+    public int getAppliedCount() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM schema_version")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+    /**
+     * Streams the versions of schema_version with a single query, without collecting them. Rows are fetched from
+     * the server in pages, so the memory used does not grow with the length of the history.
+     *
+     * @param consumer receives every applied version, in no particular order.
+     * @throws SQLException if an SQL error occurs while reading the versions.
+     */
+    public void forEachAppliedVersion(Consumer<String> consumer) throws SQLException {
+        // pgjdbc only uses a cursor for fetch-size paging inside a transaction
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(STATUS_FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery("SELECT version FROM schema_version")) {
+                while (resultSet.next()) {
+                    consumer.accept(resultSet.getString(1));
+                }
+            }
+        } finally {
+            if (autoCommit) {
+                connection.commit();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+    /**
+     * Retrieves the checksums recorded for the applied migrations, sorted by version.
+     *
+     * @return the checksum of every applied version; null for versions applied before checksums were recorded.
+     * @throws SQLException if an SQL error occurs while fetching the checksums.
+     */
+    public Map<String, String> getAppliedChecksums() throws SQLException {
+        String sql = "SELECT version, checksum FROM schema_version";
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+
+            Map<String, String> checksums = new TreeMap<>(Comparator.comparing(MigrationVersion::parse));
+            while (resultSet.next()) {
+                checksums.put(resultSet.getString("version"), resultSet.getString("checksum"));
+            }
+            return checksums;
+        }
+    }
+    /**
+     * Retrieves the checksums of the repeatable migrations as they were last applied.
+     * The repeatable_migration table is created on first use.
+     *
+     * @return the checksum of every applied repeatable migration, by name.
+     * @throws SQLException if an SQL error occurs while fetching the checksums.
+     */
+    public Map<String, String> getAppliedRepeatables() throws SQLException {
+        String sql = """
+                CREATE TABLE IF NOT EXISTS repeatable_migration (
+                    name VARCHAR(255) PRIMARY KEY,
+                    checksum VARCHAR(16) NOT NULL,
+                    applied_at TIMESTAMP
+                );
+                """;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+            try (ResultSet resultSet = statement.executeQuery("SELECT name, checksum FROM repeatable_migration")) {
+                Map<String, String> checksums = new HashMap<>();
+                while (resultSet.next()) {
+                    checksums.put(resultSet.getString("name"), resultSet.getString("checksum"));
+                }
+                return checksums;
+            }
+        }
+    }
+    /**
+     * Retrieves the current version of the database schema, i.e. the numerically highest applied version.
      *
      * @return the version of the current schema, or null if no migrations have been applied.
      * @throws SQLException if an SQL error occurs while fetching the current version.
      */
     public String getCurrentVersion() throws SQLException{
-        String sql = "SELECT version FROM schema_version ORDER BY version DESC LIMIT 1";
+        String sql = "SELECT version FROM schema_version";
         try (Statement statement = connection.createStatement();
              ResultSet resultSet = statement.executeQuery(sql)) {
 
-            if (resultSet.next()) {
-                return resultSet.getString("version");
+            MigrationVersion currentVersion = null;
+            while (resultSet.next()) {
+                MigrationVersion version = MigrationVersion.parse(resultSet.getString("version"));
+                if (currentVersion == null || version.compareTo(currentVersion) > 0) {
+                    currentVersion = version;
+                }
+            }
+            return currentVersion != null ? currentVersion.toString() : null;
+        }
+    }
+    /**
+     * Removes the schema_version entries of all versions numerically higher than the target version.
+     *
+     * @param targetVersion the version the database is rolled back to.
+     * @throws SQLException if an SQL error occurs while removing the entries.
+     */
+    public void removeVersionsAbove(String targetVersion) throws SQLException {
+        MigrationVersion target = MigrationVersion.parse(targetVersion);
+        String deleteVersionSql = "DELETE FROM schema_version WHERE version = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(deleteVersionSql)) {
+            for (String version : getAppliedMigrations()) {
+                if (MigrationVersion.parse(version).compareTo(target) > 0) {
+                    preparedStatement.setString(1, version);
+                    preparedStatement.addBatch();
+                }
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+    /**
+     * Applies a migration file, honouring the directives of its header.
+     * A migration marked {@code @transaction: none} commits the current transaction first and runs in auto-commit
+     * mode, so statements like {@code CREATE INDEX CONCURRENTLY} are accepted; its version is recorded only after
+     * the whole script succeeded. {@code @lock_timeout} and {@code @statement_timeout} apply to this migration only.
+     * A backfill migration ({@code @type: backfill}, see {@link BackfillRunner}) also commits the current transaction
+     * first and then commits after every chunk. A {@code .csv} data migration is loaded with COPY into the table
+     * named by its description, in the current transaction.
+     *
+     * @param migrationFile the migration to apply.
+     * @throws SQLException if an error occurs while applying the migration.
+     * @throws IOException if the script cannot be read.
+     */
+    public void applyMigration(MigrationFile migrationFile) throws SQLException, IOException {
+        if (migrationFile.isDataLoad()) {
+            applyDataLoad(migrationFile);
+            return;
+        }
+        MigrationHeader header = migrationFile.readHeader();
+        if (header.isBackfill()) {
+            applyBackfill(migrationFile, header);
+            return;
+        }
+        // directives are validated before the transaction of a non-transactional migration is committed
+        boolean transactional = header.isTransactional();
+        String lockTimeout = header.getLockTimeout();
+        String statementTimeout = header.getStatementTimeout();
+        boolean autoCommit = connection.getAutoCommit();
+        if (!transactional && !autoCommit) {
+            log.info("Running migration {} outside of a transaction", migrationFile.getVersion());
+            connection.commit();
+            connection.setAutoCommit(true);
+        }
+
+        boolean succeeded = false;
+        // the checksum is computed from the bytes the script is decoded from, while it is executed
+        CheckedInputStream bytes = migrationFile.getDataSource() != null
+                ? new CheckedInputStream(migrationFile.openDataStream(), new CRC32C()) : null;
+        try (Reader script = bytes != null
+                ? new BufferedReader(new InputStreamReader(bytes, StandardCharsets.UTF_8))
+                : migrationFile.openReader()) {
+            setTimeouts(lockTimeout, statementTimeout);
+            applyMigration(migrationFile.getVersion(), migrationFile.getDescription(), script,
+                    () -> bytes != null ? Checksums.format(bytes.getChecksum()) : null, transactional);
+            succeeded = true;
+        } finally {
+            // an aborted transaction rejects RESET; the rollback reverts the settings instead
+            if (succeeded || connection.getAutoCommit()) {
+                resetTimeouts(lockTimeout, statementTimeout);
+            }
+            if (!transactional && !autoCommit) {
+                connection.setAutoCommit(false);
             }
-            return null;
         }
     }
     /**
@@ -102,39 +371,141 @@ public class MigrationExecutor {
      * @throws SQLException if an error occurs while applying the migration.
      */
     public void applyMigration(String version, String description, String sql) throws SQLException {
+        applyMigration(version, description, new StringReader(sql));
+    }
+    /**
+     * Applies a migration to the database, streaming its script statement by statement.
+     *
+     * @param version     the version of the migration.
+     * @param description a description of the migration.
+     * @param script      the reader supplying the SQL script of the migration.
+     * @throws SQLException if an error occurs while applying the migration.
+     */
+    public void applyMigration(String version, String description, Reader script) throws SQLException {
+        applyMigration(version, description, script, () -> null, true);
+    }
+
+    // The checksum is supplied once the script has been read to its end
+    private void applyMigration(String version, String description, Reader script, Supplier<String> checksum,
+                                boolean transactional) throws SQLException {
         MigrationReport migrationReport = null;
         log.info("Migrating to version: {}", version);
-        try (Statement statement = connection.createStatement()) {
-                statement.execute(sql);
-            String insertVersionSql = "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)";
-            try (PreparedStatement preparedStatement = connection.prepareStatement(insertVersionSql)) {
-                preparedStatement.setString(1, version);
-                preparedStatement.setString(2, description);
-                preparedStatement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
-                preparedStatement.executeUpdate();
-            }
-            migrationReport = MigrationReport.builder()
-                    .version(version)
-                    .description(description)
-                    .status("SUCCESS")
-                    .timestamp(Timestamp.valueOf(LocalDateTime.now()))
-                    .build();
+        MigrationEvent event = new MigrationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        ScriptMetrics metrics = new ScriptMetrics();
+        try {
+            executeScript(script, metrics, transactional);
+            recordVersion(version, description, checksum.get());
+            migrationReport = scriptReport(version, description, "SUCCESS", metrics, start).build();
 
             log.info("Migration applied successfully for version: {}", version);
         } catch (SQLException e) {
-            migrationReport = MigrationReport.builder()
-                    .version(version)
-                    .description(description)
-                    .status("FAILED")
-                    .timestamp(Timestamp.valueOf(LocalDateTime.now()))
+            migrationReport = scriptReport(version, description, "FAILED", metrics, start)
                     .errorMessage(e.getMessage())
+                    .failedStatementLine(e instanceof MigrationStatementException failed ? failed.getLineNumber() : null)
                     .build();
 
             log.error("Migration failed for version: {}", version, e);
             throw e;
         } finally {
             if(migrationReport != null){
-            ReportWriter.writeReport(migrationReport, filePath+"/migration_" + version + ".json");
+            recordRun(event, "migration", migrationReport);
+            reportSink.write("migration_" + version, migrationReport);
+            }
+        }
+    }
+
+    /**
+     * Applies a baseline snapshot to an empty database in the current transaction and records the versioned
+     * migrations it covers in schema_version, with the checksums of their scripts, as if they had been applied.
+     * If the script of the baseline version itself was removed, the baseline version is recorded instead.
+     *
+     * @param baseline the baseline snapshot.
+     * @param covered  the versioned migrations up to the baseline version, with their current checksums.
+     * @throws SQLException if an error occurs while applying the baseline.
+     * @throws IOException if the script cannot be read.
+     */
+    public void applyBaseline(MigrationFile baseline, List<MigrationFile> covered) throws SQLException, IOException {
+        String version = baseline.getVersion();
+        log.info("Applying baseline of version: {}", version);
+        MigrationReport migrationReport = null;
+        MigrationEvent event = new MigrationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        ScriptMetrics metrics = new ScriptMetrics();
+        CheckedInputStream bytes = new CheckedInputStream(baseline.openDataStream(), new CRC32C());
+        try (Reader script = new BufferedReader(new InputStreamReader(bytes, StandardCharsets.UTF_8))) {
+            executeScript(script, metrics, true);
+            String insertVersionSql = "INSERT INTO schema_version (version, description, applied_at, checksum) VALUES (?, ?, ?, ?)";
+            try (PreparedStatement preparedStatement = connection.prepareStatement(insertVersionSql)) {
+                Timestamp appliedAt = Timestamp.valueOf(LocalDateTime.now());
+                boolean baselineVersionCovered = false;
+                for (MigrationFile migrationFile : covered) {
+                    baselineVersionCovered |= migrationFile.getVersion().equals(version);
+                    preparedStatement.setString(1, migrationFile.getVersion());
+                    preparedStatement.setString(2, migrationFile.getDescription());
+                    preparedStatement.setTimestamp(3, appliedAt);
+                    preparedStatement.setString(4, migrationFile.getChecksum());
+                    preparedStatement.addBatch();
+                }
+                if (!baselineVersionCovered) {
+                    preparedStatement.setString(1, version);
+                    preparedStatement.setString(2, baseline.getDescription());
+                    preparedStatement.setTimestamp(3, appliedAt);
+                    preparedStatement.setString(4, Checksums.format(bytes.getChecksum()));
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+            }
+            migrationReport = scriptReport(version, baseline.getDescription(), "SUCCESS", metrics, start).build();
+            log.info("Baseline applied successfully, {} versions recorded as applied", covered.size());
+        } catch (SQLException e) {
+            migrationReport = scriptReport(version, baseline.getDescription(), "FAILED", metrics, start)
+                    .errorMessage(e.getMessage())
+                    .failedStatementLine(e instanceof MigrationStatementException failed ? failed.getLineNumber() : null)
+                    .build();
+            log.error("Baseline failed for version: {}", version, e);
+            throw e;
+        } finally {
+            if (migrationReport != null) {
+                recordRun(event, "baseline", migrationReport);
+                reportSink.write("baseline_" + version, migrationReport);
+            }
+        }
+    }
+    /**
+     * Applies a repeatable migration in the current transaction and records the checksum of its script in
+     * repeatable_migration, so it is applied again only when the script changes.
+     *
+     * @param migrationFile the repeatable migration, with its current checksum.
+     * @throws SQLException if an error occurs while applying the migration.
+     * @throws IOException if the script cannot be read.
+     */
+    public void applyRepeatable(MigrationFile migrationFile) throws SQLException, IOException {
+        String name = migrationFile.getDescription();
+        log.info("Applying repeatable migration: {}", name);
+        MigrationReport migrationReport = null;
+        MigrationEvent event = new MigrationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        ScriptMetrics metrics = new ScriptMetrics();
+        try (Reader script = migrationFile.openReader()) {
+            executeScript(script, metrics, true);
+            recordRepeatable(name, migrationFile.getChecksum());
+            migrationReport = scriptReport(null, name, "SUCCESS", metrics, start).build();
+            log.info("Repeatable migration applied successfully: {}", name);
+        } catch (SQLException e) {
+            migrationReport = scriptReport(null, name, "FAILED", metrics, start)
+                    .errorMessage(e.getMessage())
+                    .failedStatementLine(e instanceof MigrationStatementException failed ? failed.getLineNumber() : null)
+                    .build();
+            log.error("Repeatable migration failed: {}", name, e);
+            throw e;
+        } finally {
+            if (migrationReport != null) {
+                recordRun(event, "repeatable", migrationReport);
+                reportSink.write("repeatable_" + name, migrationReport);
             }
         }
     }
@@ -148,33 +519,535 @@ public class MigrationExecutor {
      * @throws SQLException if an error occurs while rolling back the migration.
      */
     public void rollbackMigration(String version, String description, String sql) throws SQLException {
+        rollbackMigration(version, description, new StringReader(sql));
+    }
+    /**
+     * Rolls back a migration to a specific previous state, streaming its script statement by statement.
+     *
+     * @param version     the specific version of the migration (database state) to rollback.
+     * @param description a description of the rollback.
+     * @param script      the reader supplying the SQL script of the rollback.
+     * @throws SQLException if an error occurs while rolling back the migration.
+     */
+    public void rollbackMigration(String version, String description, Reader script) throws SQLException {
         log.info("Rolling back version: {}", version);
         MigrationReport migrationReport = null;
+        MigrationEvent event = new MigrationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        ScriptMetrics metrics = new ScriptMetrics();
 
-        try (Statement statement = connection.createStatement()) {
-            statement.execute(sql);
+        try {
+            executeScript(script, metrics, true);
+
+            migrationReport = scriptReport(version, description, "SUCCESS", metrics, start).build();
+
+        log.info("Rollback SQL applied for version: " + version);
+    } catch (SQLException e){
+            migrationReport = scriptReport(version, description, "FAILED", metrics, start)
+                    .errorMessage(e.getMessage())
+                    .failedStatementLine(e instanceof MigrationStatementException failed ? failed.getLineNumber() : null)
+                    .build();
+            log.error("Rollback failed for version: {}", version, e);
+            throw e;
+        } finally {
+            if (migrationReport != null) {
+                recordRun(event, "rollback", migrationReport);
+            }
+        }
+        reportSink.write("rollback_" + version, migrationReport);
+    }
+
+    /**
+     * Applies a backfill script in chunks through the {@link BackfillRunner}, each chunk committed on its own with a
+     * checkpoint, so an interrupted backfill resumes where it stopped. The version is recorded with the last chunk.
+     *
+     * @param migrationFile the backfill migration.
+     * @param header        the directives of the script.
+     * @throws SQLException if a chunk fails; the chunks committed before it are kept.
+     * @throws IOException  if the script cannot be read.
+     */
+    private void applyBackfill(MigrationFile migrationFile, MigrationHeader header) throws SQLException, IOException {
+        String version = migrationFile.getVersion();
+        String description = migrationFile.getDescription();
+        String reportName = "migration_" + version;
+        log.info("Backfilling version: {}", version);
 
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        } else {
+            connection.commit();
+        }
+        BackfillRunner backfillRunner = new BackfillRunner(connection, config);
+        MigrationReport migrationReport = null;
+        MigrationEvent event = new MigrationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            BackfillRunner.Progress progress = backfillRunner.run(migrationFile, header, chunk ->
+                    reportSink.write(reportName, backfillReport(version, description, "IN_PROGRESS", chunk).build()));
+            recordVersion(version, description, checksum(migrationFile));
+            backfillRunner.clearCheckpoint(version);
+            connection.commit();
+            migrationReport = backfillReport(version, description, "SUCCESS", progress)
+                    .durationMillis(millisSince(start))
+                    .build();
+            log.info("Backfill applied successfully for version: {}", version);
+        } catch (SQLException | IOException | RuntimeException e) {
+            connection.rollback();
+            migrationReport = backfillReport(version, description, "FAILED", backfillRunner.getProgress())
+                    .durationMillis(millisSince(start))
+                    .errorMessage(e.getMessage())
+                    .build();
+            log.error("Backfill failed for version: {}", version, e);
+            throw e;
+        } finally {
+            if (migrationReport != null) {
+                recordRun(event, "backfill", migrationReport);
+                reportSink.write(reportName, migrationReport);
+            }
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void applyDataLoad(MigrationFile migrationFile) throws SQLException, IOException {
+        String version = migrationFile.getVersion();
+        String description = migrationFile.getDescription();
+        log.info("Loading data for version: {} into {}", version, description);
+        MigrationReport migrationReport = null;
+        MigrationEvent event = new MigrationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        CountingInputStream counted = null;
+        CheckedInputStream checked = null;
+        try (InputStream data = new BufferedInputStream(checked = new CheckedInputStream(
+                counted = new CountingInputStream(migrationFile.openDataStream()), new CRC32C()), COPY_BUFFER_SIZE)) {
+            String sql = "COPY " + identifier(description) + " (" + String.join(", ", readCsvHeader(data))
+                    + ") FROM STDIN WITH (FORMAT csv)";
+            long rows = copyManager().copyIn(sql, data, COPY_BUFFER_SIZE);
+            recordVersion(version, description, Checksums.format(checked.getChecksum()));
             migrationReport = MigrationReport.builder()
                     .version(version)
                     .description(description)
                     .status("SUCCESS")
                     .timestamp(Timestamp.valueOf(LocalDateTime.now()))
+                    .durationMillis(millisSince(start))
+                    .rowsProcessed(rows)
+                    .bytesRead(counted.getCount())
                     .build();
-
-        log.info("Rollback SQL applied for version: " + version);
-    } catch (SQLException e){
+            log.info("Loaded {} rows for version: {}", rows, version);
+        } catch (SQLException | IOException | IllegalArgumentException e) {
             migrationReport = MigrationReport.builder()
                     .version(version)
                     .description(description)
                     .status("FAILED")
                     .timestamp(Timestamp.valueOf(LocalDateTime.now()))
+                    .durationMillis(millisSince(start))
+                    .bytesRead(counted != null ? counted.getCount() : null)
                     .errorMessage(e.getMessage())
                     .build();
-            log.error("Rollback failed for version: {}", version, e);
+            log.error("Data load failed for version: {}", version, e);
             throw e;
-        } if(migrationReport != null){
-            ReportWriter.writeReport(migrationReport, filePath+"/rollback_" + version + ".json");
+        } finally {
+            if (migrationReport != null) {
+                recordRun(event, "data load", migrationReport);
+                reportSink.write("migration_" + version, migrationReport);
+            }
         }
     }
-}
 
+    // Reads the header row of a CSV file as a quoted column list and leaves the stream at the first data row
+    private static List<String> readCsvHeader(InputStream data) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = data.read()) != -1 && b != '\n') {
+            if (line.size() >= MAX_CSV_HEADER_LENGTH) {
+                throw new IOException("CSV header row is longer than " + MAX_CSV_HEADER_LENGTH + " bytes");
+            }
+            line.write(b);
+        }
+        String header = line.toString(StandardCharsets.UTF_8).replace("\uFEFF", "").stripTrailing();
+        if (header.isEmpty()) {
+            throw new IOException("CSV data migration without a header row");
+        }
+
+        List<String> columns = new ArrayList<>();
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < header.length() && header.charAt(i + 1) == '"') {
+                    column.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                columns.add(identifier(column.toString().strip()));
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(identifier(column.toString().strip()));
+        return columns;
+    }
+
+    // Plain identifiers are left unquoted so PostgreSQL folds them to lower case like in SQL scripts
+    private static String identifier(String name) {
+        if (SIMPLE_IDENTIFIER.matcher(name).matches()) {
+            return name;
+        }
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Empty column or table name in data migration");
+        }
+        return "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+
+    private static MigrationReport.MigrationReportBuilder scriptReport(String version, String description, String status,
+                                                                       ScriptMetrics metrics, long startNanos) {
+        return MigrationReport.builder()
+                .version(version)
+                .description(description)
+                .status(status)
+                .timestamp(Timestamp.valueOf(LocalDateTime.now()))
+                .durationMillis(millisSince(startNanos))
+                .statementCount(metrics.getStatements())
+                .rowsProcessed(metrics.getRowsAffected())
+                .bytesRead(metrics.getBytesRead())
+                .slowestStatementLine(metrics.getSlowestStatementLine())
+                .slowestStatementMillis(metrics.getSlowestStatementLine() != null
+                        ? metrics.getSlowestStatementNanos() / 1_000_000 : null);
+    }
+
+    // Emits the JFR event of a finished migration and adds it to the metrics registry
+    private static void recordRun(MigrationEvent event, String kind, MigrationReport report) {
+        long rows = report.getRowsProcessed() != null ? report.getRowsProcessed() : 0L;
+        long bytes = report.getBytesRead() != null ? report.getBytesRead() : 0L;
+        event.end();
+        if (event.shouldCommit()) {
+            event.version = report.getVersion();
+            event.migrationDescription = report.getDescription();
+            event.kind = kind;
+            event.status = report.getStatus();
+            event.statements = report.getStatementCount() != null ? report.getStatementCount() : 0L;
+            event.rows = rows;
+            event.bytesRead = bytes;
+            event.commit();
+        }
+        MetricsRegistry registry = MetricsRegistry.global();
+        registry.timer("migration_duration_seconds", "Execution time of migrations by status", "status", report.getStatus())
+                .record(report.getDurationMillis() * 1_000_000);
+        registry.counter("migration_rows_total", "Rows affected, loaded or backfilled by migrations").increment(rows);
+        registry.counter("migration_read_bytes_total", "Size of the migration scripts and data files read").increment(bytes);
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static MigrationReport.MigrationReportBuilder backfillReport(String version, String description, String status,
+                                                                         BackfillRunner.Progress progress) {
+        MigrationReport.MigrationReportBuilder report = MigrationReport.builder()
+                .version(version)
+                .description(description)
+                .status(status)
+                .timestamp(Timestamp.valueOf(LocalDateTime.now()));
+        if (progress != null) {
+            report.rowsProcessed(progress.getRowsProcessed())
+                    .chunksProcessed(progress.getChunksProcessed())
+                    .progressPercent(progress.getPercent());
+        }
+        return report;
+    }
+
+    private void recordVersion(String version, String description, String checksum) throws SQLException {
+        String insertVersionSql = "INSERT INTO schema_version (version, description, applied_at, checksum) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(insertVersionSql)) {
+            preparedStatement.setString(1, version);
+            preparedStatement.setString(2, description);
+            preparedStatement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            preparedStatement.setString(4, checksum);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private void recordRepeatable(String name, String checksum) throws SQLException {
+        String updateSql = "UPDATE repeatable_migration SET checksum = ?, applied_at = ? WHERE name = ?";
+        try (PreparedStatement update = connection.prepareStatement(updateSql)) {
+            update.setString(1, checksum);
+            update.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            update.setString(3, name);
+            if (update.executeUpdate() > 0) {
+                return;
+            }
+        }
+        String insertSql = "INSERT INTO repeatable_migration (name, checksum, applied_at) VALUES (?, ?, ?)";
+        try (PreparedStatement insert = connection.prepareStatement(insertSql)) {
+            insert.setString(1, name);
+            insert.setString(2, checksum);
+            insert.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            insert.executeUpdate();
+        }
+    }
+
+    // Backfill scripts are re-read per chunk, so their checksum is computed separately
+    private static String checksum(MigrationFile migrationFile) throws IOException {
+        if (migrationFile.getDataSource() == null) {
+            return null;
+        }
+        try (InputStream input = migrationFile.openDataStream()) {
+            return Checksums.crc32c(input);
+        }
+    }
+
+    private void setTimeouts(String lockTimeout, String statementTimeout) throws SQLException {
+        if (lockTimeout == null && statementTimeout == null) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            if (lockTimeout != null) {
+                statement.execute("SET lock_timeout = '" + lockTimeout + "'");
+            }
+            if (statementTimeout != null) {
+                statement.execute("SET statement_timeout = '" + statementTimeout + "'");
+            }
+        }
+    }
+
+    private void resetTimeouts(String lockTimeout, String statementTimeout) {
+        if (lockTimeout == null && statementTimeout == null) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            if (lockTimeout != null) {
+                statement.execute("RESET lock_timeout");
+            }
+            if (statementTimeout != null) {
+                statement.execute("RESET statement_timeout");
+            }
+        } catch (SQLException e) {
+            log.warn("Could not reset the migration timeouts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Executes a script one statement at a time, so the whole script is never held in memory.
+     * In the batch execution mode consecutive statements that do not return results are grouped into
+     * JDBC batches of the configured size, unless the script runs outside of a transaction. Within a batch,
+     * consecutive {@code INSERT ... VALUES} statements into the same table and columns are merged into one
+     * multi-row INSERT when {@code db.rewrite.batched.inserts} is enabled.
+     * {@code COPY ... FROM stdin} blocks are streamed to the server through the PostgreSQL copy API.
+     *
+     * @param script        the reader supplying the SQL script.
+     * @param metrics       the metrics the statements are recorded in.
+     * @param transactional whether the script runs inside a transaction.
+     * @throws SQLException if a statement fails or the script cannot be read.
+     */
+    private void executeScript(Reader script, ScriptMetrics metrics, boolean transactional) throws SQLException {
+        // pgjdbc sends a batch as one implicit transaction block, which statements like CREATE INDEX CONCURRENTLY
+        // reject, so scripts running outside of a transaction execute their statements one at a time
+        boolean batching = batchExecution && transactional;
+        SqlStatementSplitter splitter = new SqlStatementSplitter(script);
+        try (splitter; Statement statement = connection.createStatement()) {
+            List<SqlStatement> batch = new ArrayList<>();
+            SqlStatement sqlStatement;
+            while ((sqlStatement = splitter.next()) != null) {
+                if (batching && isBatchable(sqlStatement)) {
+                    batch.add(sqlStatement);
+                    if (batch.size() >= batchSize) {
+                        executeBatch(statement, batch, metrics);
+                    }
+                    continue;
+                }
+                executeBatch(statement, batch, metrics);
+                executeStatement(statement, sqlStatement, splitter, metrics);
+            }
+            executeBatch(statement, batch, metrics);
+        } catch (IOException e) {
+            throw new SQLException("Failed to read migration script", e);
+        } finally {
+            metrics.setBytesRead(splitter.getCharsRead());
+        }
+    }
+
+    private void executeStatement(Statement statement, SqlStatement sqlStatement, SqlStatementSplitter splitter,
+                                  ScriptMetrics metrics) throws SQLException, IOException {
+        log.debug("Executing statement at line {}", sqlStatement.getLineNumber());
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long rows;
+        try {
+            if (sqlStatement.isCopyFromStdin()) {
+                rows = copyIn(sqlStatement.getSql(), splitter.copyData());
+            } else {
+                rows = statement.execute(sqlStatement.getSql()) ? 0 : Math.max(0, statement.getUpdateCount());
+            }
+        } catch (MigrationStatementException e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new MigrationStatementException(sqlStatement, e);
+        }
+        recordStatement(event, sqlStatement, 1, rows, start, metrics);
+    }
+
+    private void executeBatch(Statement statement, List<SqlStatement> batch, ScriptMetrics metrics) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        log.debug("Executing batch of {} statements starting at line {}", batch.size(), batch.get(0).getLineNumber());
+        List<SqlStatement> entries = mergeInserts ? mergeInserts(batch) : batch;
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            for (SqlStatement entry : entries) {
+                statement.addBatch(entry.getSql());
+            }
+            int[] updateCounts = statement.executeBatch();
+            long rows = 0;
+            if (updateCounts != null) {
+                for (int updateCount : updateCounts) {
+                    rows += Math.max(0, updateCount);
+                }
+            }
+            recordStatement(event, batch.get(0), batch.size(), rows, start, metrics);
+        } catch (BatchUpdateException e) {
+            throw new MigrationStatementException(entries.get(failedBatchIndex(e, entries.size())), e);
+        } finally {
+            statement.clearBatch();
+            batch.clear();
+        }
+    }
+
+    private static void recordStatement(StatementEvent event, SqlStatement first, int count, long rows, long startNanos,
+                                        ScriptMetrics metrics) {
+        long nanos = System.nanoTime() - startNanos;
+        metrics.recordStatement(first.getLineNumber(), count, rows, nanos);
+        event.end();
+        if (event.shouldCommit()) {
+            event.line = first.getLineNumber();
+            event.statements = count;
+            event.rows = rows;
+            event.sql = first.getSql().length() > MAX_EVENT_SQL_LENGTH
+                    ? first.getSql().substring(0, MAX_EVENT_SQL_LENGTH) : first.getSql();
+            event.commit();
+        }
+    }
+
+    // Drivers either mark the failed entry or stop reporting counts at it
+    private static int failedBatchIndex(BatchUpdateException e, int batchSize) {
+        int[] updateCounts = e.getUpdateCounts();
+        if (updateCounts == null) {
+            return 0;
+        }
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                return i;
+            }
+        }
+        return Math.min(updateCounts.length, batchSize - 1);
+    }
+
+    // Statements producing result sets, including DML ... RETURNING, cannot be part of a JDBC batch
+    private static boolean isBatchable(SqlStatement sqlStatement) {
+        if (sqlStatement.isCopyFromStdin() || RETURNING.matcher(sqlStatement.getSql()).find()) {
+            return false;
+        }
+        Matcher matcher = LEADING_KEYWORD.matcher(sqlStatement.getSql());
+        return matcher.lookingAt() && !RESULT_KEYWORDS.contains(matcher.group(1).toUpperCase());
+    }
+
+    // pgjdbc only rewrites batches of prepared statements into multi-row INSERTs, not the plain statements of a
+    // script, so runs of INSERTs sharing table and columns are merged here; a merged INSERT reports the first line
+    private static List<SqlStatement> mergeInserts(List<SqlStatement> batch) {
+        List<SqlStatement> entries = new ArrayList<>(batch.size());
+        String prefix = null;
+        StringBuilder merged = null;
+        SqlStatement first = null;
+        for (SqlStatement sqlStatement : batch) {
+            Matcher matcher = SIMPLE_INSERT.matcher(sqlStatement.getSql());
+            boolean mergeable = matcher.matches() && isRowList(matcher.group(2));
+            if (mergeable && matcher.group(1).equals(prefix)) {
+                merged.append(", ").append(matcher.group(2));
+                continue;
+            }
+            addMerged(entries, first, merged);
+            if (mergeable) {
+                prefix = matcher.group(1);
+                merged = new StringBuilder(sqlStatement.getSql());
+                first = sqlStatement;
+            } else {
+                prefix = null;
+                merged = null;
+                first = null;
+                entries.add(sqlStatement);
+            }
+        }
+        addMerged(entries, first, merged);
+        return entries;
+    }
+
+    private static void addMerged(List<SqlStatement> entries, SqlStatement first, StringBuilder merged) {
+        if (first == null) {
+            return;
+        }
+        entries.add(merged.length() == first.getSql().length() ? first : SqlStatement.builder()
+                .sql(merged.toString())
+                .lineNumber(first.getLineNumber())
+                .build());
+    }
+
+    // Checks that the text after VALUES is only a list of parenthesised rows, so nothing like ON CONFLICT follows;
+    // dollar quotes, backslash escapes and comments are not parsed and keep the statement as it is
+    private static boolean isRowList(String rows) {
+        if (rows.indexOf('$') >= 0 || rows.indexOf('\\') >= 0 || rows.contains("--") || rows.contains("/*")) {
+            return false;
+        }
+        int depth = 0;
+        boolean expectRow = true;
+        for (int i = 0; i < rows.length(); i++) {
+            char c = rows.charAt(i);
+            if (depth > 0) {
+                if (c == '\'' || c == '"') {
+                    // skip the quoted text, where a doubled quote stands for the quote itself
+                    do {
+                        i = rows.indexOf(c, i + 1);
+                        if (i < 0) {
+                            return false;
+                        }
+                    } while (++i < rows.length() && rows.charAt(i) == c);
+                    i--;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+            } else if (c == '(' && expectRow) {
+                depth = 1;
+                expectRow = false;
+            } else if (c == ',' && !expectRow) {
+                expectRow = true;
+            } else if (!Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return depth == 0 && !expectRow;
+    }
+
+    private long copyIn(String sql, Reader data) throws SQLException, IOException {
+        long rows = copyManager().copyIn(sql, data);
+        log.debug("Copied {} rows", rows);
+        return rows;
+    }
+
+    private CopyManager copyManager() throws SQLException {
+        if (!connection.isWrapperFor(PGConnection.class)) {
+            throw new SQLException("COPY FROM stdin is only supported on PostgreSQL connections");
+        }
+        return connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+}
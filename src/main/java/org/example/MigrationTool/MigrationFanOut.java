@@ -0,0 +1,210 @@
+package org.example.MigrationTool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.DBConnectionManager.ConnectionManager;
+import org.example.Metrics.MetricsRegistry;
+import org.example.MigrationReport.FanOutSummary;
+import org.example.MigrationReport.ReportWriter;
+import org.example.MigrationReport.TargetReport;
+import org.example.Utils.PropertiesUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+/**
+ * Migrates many targets (databases by URL, or schemas through the search_path) concurrently.
+ * Every target runs on a virtual thread with its own lock and report directory (or tagged lines in the shared
+ * NDJSON report file); a semaphore bounds how many targets are migrated at once. Targets of the same URL share one connection pool, sized for a migration and a
+ * lock heartbeat connection per concurrent target. An aggregate summary and the metrics of all targets are written
+ * after all targets finish.
+ */
+@Slf4j
+public class MigrationFanOut {
+    private final PropertiesUtils config;
+    private final int parallelism;
+    private final Map<String, ConnectionManager> connectionManagers = new ConcurrentHashMap<>();
+
+    /**
+     * @param config      the base configuration
+     * @param parallelism the number of targets migrated at the same time
+     * @throws IllegalArgumentException if the parallelism is not a positive number
+     */
+    public MigrationFanOut(PropertiesUtils config, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Fan-out parallelism must be a positive number: " + parallelism);
+        }
+        this.config = config;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Builds the targets as the cross product of URLs and schemas.
+     * Without URLs the configured {@code db.url} is used; without schemas the connection default schema is used.
+     *
+     * @param urls    the JDBC URLs to migrate
+     * @param schemas the schemas to migrate in every URL
+     * @param config  the base configuration
+     * @return the targets
+     */
+    public static List<MigrationTarget> targets(List<String> urls, List<String> schemas, PropertiesUtils config) {
+        List<String> targetUrls = urls.isEmpty() ? List.of(config.getUrl()) : urls;
+        List<MigrationTarget> targets = new ArrayList<>();
+        for (String url : targetUrls) {
+            String database = databaseName(url);
+            if (schemas.isEmpty()) {
+                targets.add(MigrationTarget.builder().name(database).url(url).build());
+            }
+            for (String schema : schemas) {
+                String name = urls.isEmpty() ? schema : database + "_" + schema;
+                targets.add(MigrationTarget.builder().name(name).url(url).schema(schema).build());
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Migrates all targets and writes per-target reports and the aggregate summary.
+     *
+     * @param targets the targets to migrate
+     * @return the aggregate summary
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the targets
+     */
+    public FanOutSummary migrate(List<MigrationTarget> targets) throws InterruptedException {
+        log.info("Fan-out migration of {} targets with parallelism {}", targets.size(), parallelism);
+        long start = System.nanoTime();
+        Semaphore permits = new Semaphore(parallelism);
+        List<TargetReport> reports = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<TargetReport>> futures = new ArrayList<>();
+            for (MigrationTarget target : targets) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return migrateTarget(target);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<TargetReport> future : futures) {
+                try {
+                    reports.add(future.get());
+                } catch (ExecutionException e) {
+                    // migrateTarget reports its own failures; this only happens on errors outside of it
+                    throw new IllegalStateException("Fan-out task failed", e.getCause());
+                }
+            }
+        } finally {
+            for (Map.Entry<String, ConnectionManager> entry : connectionManagers.entrySet()) {
+                log.info("Connection pool metrics for {}: {}", databaseName(entry.getKey()), entry.getValue().getPoolMetrics());
+                entry.getValue().close();
+            }
+            connectionManagers.clear();
+        }
+
+        int succeeded = (int) reports.stream().filter(report -> "SUCCESS".equals(report.getStatus())).count();
+        FanOutSummary summary = FanOutSummary.builder()
+                .total(reports.size())
+                .succeeded(succeeded)
+                .failed(reports.size() - succeeded)
+                .durationMillis((System.nanoTime() - start) / 1_000_000)
+                .timestamp(Timestamp.valueOf(LocalDateTime.now()))
+                .targets(reports)
+                .build();
+        ReportWriter.writeSummary(summary, config.getReportsPath() + "/fanout_summary.json");
+        if (config.isMetricsEnabled()) {
+            try {
+                MetricsRegistry.global().writePrometheus(Paths.get(config.getReportsPath()));
+            } catch (IOException e) {
+                log.warn("Failed to write metrics: {}", e.getMessage());
+            }
+        }
+
+        log.info("Fan-out migration finished: {} succeeded, {} failed in {} ms",
+                summary.getSucceeded(), summary.getFailed(), summary.getDurationMillis());
+        for (TargetReport report : reports) {
+            if (!"SUCCESS".equals(report.getStatus())) {
+                log.error("Target {} failed: {}", report.getTarget(), report.getErrorMessage());
+            }
+        }
+        return summary;
+    }
+
+    private TargetReport migrateTarget(MigrationTarget target) {
+        long start = System.nanoTime();
+        TargetReport.TargetReportBuilder report = TargetReport.builder()
+                .target(target.getName())
+                .url(target.getUrl())
+                .schema(target.getSchema());
+
+        // NDJSON reports of all targets go to one run file, tagged with the target name
+        boolean sharedReports = "ndjson".equals(config.getReportsMode());
+        Path reportsDir = sharedReports
+                ? Paths.get(config.getReportsPath())
+                : Paths.get(config.getReportsPath(), sanitize(target.getName()));
+        PropertiesUtils targetConfig = config
+                .withOverride("db.url", target.getUrl())
+                .withOverride("db.schema", target.getSchema() != null ? target.getSchema() : "")
+                .withOverride("reports.path", reportsDir.toString())
+                .withOverride("reports.target", target.getName())
+                .withOverride("metrics.enabled", "false");
+
+        try {
+            Files.createDirectories(reportsDir);
+            ConnectionManager connectionManager = connectionManager(target.getUrl());
+            try (Connection connection = connectionManager.borrow()) {
+                if (target.getSchema() != null) {
+                    connection.setSchema(target.getSchema());
+                }
+                MigrationExecutor migrationExecutor = new MigrationExecutor(connection, targetConfig);
+                migrationExecutor.initializeSchemaTable();
+                migrationExecutor.initializeLockTable();
+                new MigrationTool(migrationExecutor, connection, targetConfig, connectionManager).migrate();
+                report.status("SUCCESS").currentVersion(migrationExecutor.getCurrentVersion());
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            String message = e.getCause() != null ? e.getMessage() + ": " + e.getCause().getMessage() : e.getMessage();
+            log.error("Migration of target {} failed: {}", target.getName(), message);
+            report.status("FAILED").errorMessage(message);
+        }
+        return report.durationMillis((System.nanoTime() - start) / 1_000_000).build();
+    }
+
+    private ConnectionManager connectionManager(String url) {
+        return connectionManagers.computeIfAbsent(url, key -> {
+            int poolSize = Math.max(config.getPoolMaxSize(), 2 * parallelism);
+            return new ConnectionManager(config
+                    .withOverride("db.url", key)
+                    .withOverride("db.schema", "")
+                    .withOverride("db.pool.max.size", String.valueOf(poolSize)));
+        });
+    }
+
+    // jdbc:postgresql://host:5432/tenants?ssl=true -> tenants
+    private static String databaseName(String url) {
+        String withoutParameters = url.split("[?;]")[0];
+        int slash = withoutParameters.lastIndexOf('/');
+        int colon = withoutParameters.lastIndexOf(':');
+        String name = withoutParameters.substring(Math.max(slash, colon) + 1);
+        return name.isEmpty() ? sanitize(withoutParameters) : name;
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9_.-]", "_");
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.MigrationTool;
+
+import org.example.MigrationFile.MigrationFile;
+import org.example.MigrationFile.MigrationHeader;
+import org.example.MigrationFile.MigrationIndex;
+import org.example.MigrationFile.MigrationVersion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The dependency graph of the pending migrations.
+ * A script declares the versions it needs with a {@code -- @depends: 3, 5} header; a script without the header
+ * depends on every earlier version, so unannotated scripts keep the strict sequential order. Dependencies may
+ * only point to earlier versions, which keeps the graph acyclic. Dependencies that are already applied are satisfied.
+ * <p>
+ * The graph also tracks the scheduling state: {@link #takeReady()} hands out migrations whose dependencies are
+ * complete and {@link #complete(MigrationFile)} marks a migration as applied. Each migration counts its unfinished
+ * dependencies and joins the ready queue when the count drops to zero, so scheduling costs are linear in the number of
+ * dependencies. It is not thread safe.
+ */
+public class MigrationGraph {
+    private final List<MigrationFile> migrations;
+    private final Map<MigrationFile, Integer> nodes = new IdentityHashMap<>();
+    private final List<List<Integer>> dependents;
+    private final boolean[] waitsForEarlier; // no @depends header: depends on every earlier migration
+    private final int[] remaining;
+    private final boolean[] completed;
+    private final PriorityQueue<Integer> ready = new PriorityQueue<>();
+    private int completedPrefix;
+    private int completedCount;
+
+    private MigrationGraph(List<MigrationFile> migrations, List<int[]> dependencies) {
+        int size = migrations.size();
+        this.migrations = migrations;
+        this.dependents = new ArrayList<>(size);
+        this.waitsForEarlier = new boolean[size];
+        this.remaining = new int[size];
+        this.completed = new boolean[size];
+        for (int node = 0; node < size; node++) {
+            nodes.put(migrations.get(node), node);
+            dependents.add(new ArrayList<>());
+        }
+        for (int node = 0; node < size; node++) {
+            int[] nodeDependencies = dependencies.get(node);
+            if (nodeDependencies == null) {
+                // the completed prefix reaching the node counts as its single dependency
+                waitsForEarlier[node] = true;
+                remaining[node] = node > 0 ? 1 : 0;
+            } else {
+                remaining[node] = nodeDependencies.length;
+                for (int dependency : nodeDependencies) {
+                    dependents.get(dependency).add(node);
+                }
+            }
+            if (remaining[node] == 0) {
+                ready.add(node);
+            }
+        }
+    }
+
+    /**
+     * Builds the graph from the headers of the pending scripts.
+     *
+     * @param pending the migrations to apply.
+     * @param applied the versions that are already applied.
+     * @return the dependency graph.
+     * @throws IOException if a script header cannot be read.
+     * @throws IllegalStateException if a dependency is unknown or does not precede the migration.
+     */
+    public static MigrationGraph build(List<MigrationFile> pending, Collection<String> applied) throws IOException {
+        MigrationIndex<MigrationFile> index = MigrationIndex.of(pending, MigrationFile::getVersion);
+        List<MigrationFile> migrations = index.all();
+        Set<MigrationVersion> appliedVersions = new HashSet<>();
+        for (String version : applied) {
+            appliedVersions.add(MigrationVersion.parse(version));
+        }
+
+        List<int[]> dependencies = new ArrayList<>(migrations.size());
+        for (MigrationFile migration : migrations) {
+            MigrationHeader header = migration.readHeader();
+            if (!header.declaresDependencies()) {
+                dependencies.add(null);
+                continue;
+            }
+            MigrationVersion version = MigrationVersion.parse(migration.getVersion());
+            List<Integer> nodes = new ArrayList<>();
+            for (String dependency : header.getDependencies()) {
+                MigrationVersion dependencyVersion = MigrationVersion.parse(dependency);
+                if (dependencyVersion.compareTo(version) >= 0) {
+                    throw new IllegalStateException("Migration " + migration.getVersion()
+                            + " can only depend on earlier versions, not on " + dependency);
+                }
+                int dependencyNode = index.indexOf(dependencyVersion);
+                if (dependencyNode >= 0) {
+                    nodes.add(dependencyNode);
+                } else if (!appliedVersions.contains(dependencyVersion)) {
+                    throw new IllegalStateException("Migration " + migration.getVersion()
+                            + " depends on unknown version " + dependency);
+                }
+            }
+            dependencies.add(nodes.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return new MigrationGraph(migrations, dependencies);
+    }
+
+    /**
+     * Returns the migrations that are ready to run and marks them as started.
+     *
+     * @return the migrations whose dependencies are complete, in version order.
+     */
+    public List<MigrationFile> takeReady() {
+        List<MigrationFile> taken = new ArrayList<>(ready.size());
+        while (!ready.isEmpty()) {
+            taken.add(migrations.get(ready.poll()));
+        }
+        return taken;
+    }
+
+    /**
+     * Marks a started migration as applied.
+     *
+     * @param migration the applied migration.
+     */
+    public void complete(MigrationFile migration) {
+        int node = nodes.get(migration);
+        if (completed[node]) {
+            return;
+        }
+        completed[node] = true;
+        completedCount++;
+        for (int dependent : dependents.get(node)) {
+            release(dependent);
+        }
+        while (completedPrefix < completed.length && completed[completedPrefix]) {
+            completedPrefix++;
+            if (completedPrefix < completed.length && waitsForEarlier[completedPrefix]) {
+                release(completedPrefix);
+            }
+        }
+    }
+
+    /**
+     * Checks whether all migrations of the graph are applied.
+     */
+    public boolean isComplete() {
+        return completedCount == migrations.size();
+    }
+
+    /**
+     * Returns the number of migrations in the graph.
+     */
+    public int size() {
+        return migrations.size();
+    }
+
+    // one dependency of the node is complete; queue it once none is left
+    private void release(int node) {
+        if (--remaining[node] == 0) {
+            ready.add(node);
+        }
+    }
+}
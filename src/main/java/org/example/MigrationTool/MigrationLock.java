@@ -1,127 +1,71 @@
 package org.example.MigrationTool;
 
-import lombok.extern.slf4j.Slf4j;
+import org.example.DBConnectionManager.ConnectionManager;
+import org.example.Utils.PropertiesUtils;
 
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Timestamp;
-import java.time.LocalDateTime;
 /**
  * Service for acquiring and releasing a lock for the migration process.
+ * Implementations: {@link AdvisoryMigrationLock} (PostgreSQL session-level advisory lock) and
+ * {@link TableMigrationLock} (a row in the migration_lock table, for other databases).
  */
-@Slf4j
-public class MigrationLock {
-
-    private final Connection connection;
-
-    public MigrationLock(Connection connection) {
-        this.connection = connection;
-    }
+public interface MigrationLock {
     /**
-     * Acquires a lock for the migration process. Throws an exception if the lock is already acquired.
+     * Acquires a lock for the migration process. If the lock is already acquired, waits for it up to
+     * {@code migration.lock.wait.timeout.ms} and then throws an exception (immediately with the default of 0).
      *
      * @param lockedBy the user or process requesting the lock
      * @throws SQLException if a database error occurs
+     * @throws IllegalStateException if the lock is still held by another process when the wait times out
      */
-
-    public void lock(String lockedBy) throws SQLException {
-        log.debug("Attempting to acquire lock...");
-
-        String checkLockSql = """
-                SELECT is_locked 
-                FROM migration_lock 
-                WHERE id = 1
-                """;
-
-        String lockSql = """
-                INSERT INTO migration_lock (id, is_locked, locked_at, locked_by)
-                VALUES (1, TRUE, ?, ?)
-                ON CONFLICT (id) DO UPDATE
-                SET is_locked = EXCLUDED.is_locked, 
-                    locked_at = EXCLUDED.locked_at, 
-                    locked_by = EXCLUDED.locked_by
-                """;
-
-        try {
-            connection.setAutoCommit(false);
-
-            // Check if the lock is already acquired
-            try (PreparedStatement checkLockStmt = connection.prepareStatement(checkLockSql)) {
-                ResultSet resultSet = checkLockStmt.executeQuery();
-                if (resultSet.next() && resultSet.getBoolean("is_locked")) {
-                    throw new IllegalStateException("Migration is already locked by another process.");
-                }
-            }
-
-            // Acquire the lock
-            try (PreparedStatement lockStmt = connection.prepareStatement(lockSql)) {
-                lockStmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
-                lockStmt.setString(2, lockedBy);
-                lockStmt.executeUpdate();
-            }
-
-            connection.commit();
-
-            log.debug("Lock acquired successfully by: " + lockedBy);
-        } catch (SQLException | IllegalStateException e) {
-            connection.rollback();
-            log.error("Failed to acquire lock: {}", e.getMessage());
-            throw e;
-        } finally {
-            connection.setAutoCommit(true);
-        }
-    }
+    void lock(String lockedBy) throws SQLException;
     /**
      * Releases the lock held by the current process.
      *
      * @throws SQLException if a database error occurs
      */
-    public void unlock() throws SQLException {
-        log.debug("Releasing lock...");
-
-        String unlockSql = """
-                UPDATE migration_lock 
-                SET is_locked = FALSE, 
-                    locked_at = NULL, 
-                    locked_by = NULL 
-                WHERE id = 1
-                """;
-
-        try (PreparedStatement unlockStmt = connection.prepareStatement(unlockSql)) {
-            int rowsUpdated = unlockStmt.executeUpdate();
-            if (rowsUpdated > 0) {
-                log.debug("Lock released successfully.");
-            } else {
-                log.warn("Lock was not held.");
-            }
-        }
-    }
+    void unlock() throws SQLException;
     /**
      * Checks if the migration process is currently locked.
      *
      * @return true if the migration is locked, false otherwise
      * @throws SQLException if a database error occurs
      */
-    public boolean isLocked() throws SQLException {
-        String checkLockSql = """
-                SELECT is_locked 
-                FROM migration_lock 
-                WHERE id = 1
-                """;
-
-        try (PreparedStatement checkLockStmt = connection.prepareStatement(checkLockSql)) {
-            ResultSet resultSet = checkLockStmt.executeQuery();
-            if (resultSet.next()) {
-                boolean locked = resultSet.getBoolean("is_locked");
-                log.debug("Lock status: " + (locked ? "Locked" : "Unlocked"));
-                return locked;
-            }
+    boolean isLocked() throws SQLException;
+    /**
+     * Checks that the lock is still held by the current process before its work is committed.
+     * Only locks that can expire can be lost; the default does nothing.
+     *
+     * @throws IllegalStateException if the lock was lost while it was held
+     */
+    default void verifyHeld() {
+    }
 
-            // If no row exists, assume unlocked
-            log.debug("No lock record found. Assuming unlocked.");
-            return false;
-        }
+    /**
+     * Creates the lock backend selected by {@code migration.lock.type}: {@code advisory}, {@code table},
+     * or {@code auto} (advisory on PostgreSQL, table otherwise). The table lock lives in the current schema and the
+     * advisory key is derived from {@code db.schema}, so each schema is locked independently.
+     *
+     * @param connection        the connection the lock is taken on
+     * @param config            the configuration
+     * @param connectionManager provides pooled connections for the lease heartbeat of the table lock
+     * @return the lock backend
+     * @throws SQLException if the database type cannot be determined
+     */
+    static MigrationLock create(Connection connection, PropertiesUtils config, ConnectionManager connectionManager)
+            throws SQLException {
+        String type = config.getLockType();
+        boolean advisory = switch (type) {
+            case "advisory" -> true;
+            case "table" -> false;
+            default -> "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        };
+        // advisory locks are database-wide, so every schema gets its own key
+        long key = config.getSchema() == null ? config.getLockKey() : 31 * config.getLockKey() + config.getSchema().hashCode();
+        return advisory
+                ? new AdvisoryMigrationLock(connection, key, config.getLockWaitTimeout())
+                : new TableMigrationLock(connection, config.getLockWaitTimeout(), config.getLockLease(),
+                        connectionManager);
     }
 }
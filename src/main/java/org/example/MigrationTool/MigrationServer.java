@@ -0,0 +1,319 @@
+package org.example.MigrationTool;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.DBConnectionManager.ConnectionManager;
+import org.example.MigrationReport.MigrationStatus;
+import org.example.Utils.PropertiesUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves {@link MigrationTool} over a local HTTP API, so that callers do not pay for JVM startup, a new connection
+ * and the table initialisation on every call:
+ * <ul>
+ *     <li>{@code GET /status?limit=N} - the status document of {@code status --format json}</li>
+ *     <li>{@code POST /migrate} - applies the pending migrations</li>
+ *     <li>{@code POST /rollback?version=V} - rolls back to the given version</li>
+ * </ul>
+ * Requests are handled on virtual threads. The server keeps one warm connection, which a lock lends to one request
+ * at a time; it is validated before every use and reopened if the database dropped it, e.g. after a restart or an
+ * idle timeout. The migration scripts are listed through the reader's in-memory manifest. Status documents and the
+ * outcome of the last migration are cached while the migrations directory is unchanged, for at most
+ * {@code serve.cache.ttl.ms}, so a repeated status or migrate call is answered without touching the database.
+ */
+@Slf4j
+public class MigrationServer implements AutoCloseable {
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final ConnectionManager connectionManager;
+    private final PropertiesUtils config;
+    private final long cacheTtlNanos;
+    // the connection of the migration tool is not thread safe; both are guarded by the lock
+    private final ReentrantLock connectionLock = new ReentrantLock();
+    private Connection connection;
+    private MigrationTool migrationTool;
+    private final Map<Integer, Cached> statusCache = new ConcurrentHashMap<>();
+    private volatile Cached lastMigration;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    // a response body, valid until the deadline and while the migrations directory keeps its modification time
+    private record Cached(byte[] body, long migrationsModified, long expiresAt) {
+    }
+
+    public MigrationServer(ConnectionManager connectionManager, PropertiesUtils config) {
+        this.connectionManager = connectionManager;
+        this.config = config;
+        this.cacheTtlNanos = config.getServeCacheTtl().toNanos();
+    }
+
+    /**
+     * Starts listening on {@code serve.host} and {@code serve.port}.
+     *
+     * @param port the port to listen on, overriding {@code serve.port} if not null; zero picks a free port.
+     * @return the port the server listens on.
+     * @throws IOException if the address cannot be bound.
+     */
+    public int start(Integer port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(config.getServeHost(),
+                port != null ? port : config.getServePort()), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/status", exchange -> handle(exchange, "GET", this::status));
+        server.createContext("/migrate", exchange -> handle(exchange, "POST", this::migrate));
+        server.createContext("/rollback", exchange -> handle(exchange, "POST", this::rollback));
+        server.start();
+        int boundPort = server.getAddress().getPort();
+        log.info("Serving migrations on http://{}:{}", config.getServeHost(), boundPort);
+        return boundPort;
+    }
+
+    /**
+     * Stops the server, waiting up to a second for running requests, and closes its connection.
+     */
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(1);
+            executor.close();
+            server = null;
+        }
+        connectionLock.lock();
+        try {
+            closeConnection();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    // must be called with the connection lock held
+    private MigrationTool migrationTool() throws SQLException {
+        if (connection != null && connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+            return migrationTool;
+        }
+        if (connection != null) {
+            log.warn("The server connection is no longer valid, reconnecting");
+            closeConnection();
+        }
+        Connection newConnection = connectionManager.connect();
+        try {
+            MigrationExecutor migrationExecutor = new MigrationExecutor(newConnection, config);
+            migrationExecutor.initializeSchemaTable();
+            migrationExecutor.initializeLockTable();
+            migrationTool = new MigrationTool(migrationExecutor, newConnection, config, connectionManager);
+        } catch (SQLException | RuntimeException e) {
+            newConnection.close();
+            throw e;
+        }
+        connection = newConnection;
+        return migrationTool;
+    }
+
+    private void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close the server connection: {}", e.getMessage());
+        }
+        connection = null;
+        migrationTool = null;
+    }
+
+    private interface Handler {
+        byte[] handle(Map<String, String> parameters) throws SQLException, IOException;
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try (exchange) {
+            int status = 200;
+            byte[] body;
+            if (!method.equals(exchange.getRequestMethod())) {
+                status = 405;
+                body = error("Use " + method);
+            } else {
+                try {
+                    body = handler.handle(parameters(exchange.getRequestURI().getRawQuery()));
+                } catch (IllegalArgumentException e) {
+                    status = 400;
+                    body = error(e.getMessage());
+                } catch (IllegalStateException e) {
+                    // the migration lock is held by another process
+                    status = 409;
+                    body = error(e.getMessage());
+                } catch (SQLException | IOException | RuntimeException e) {
+                    log.error("Request {} failed: {}", exchange.getRequestURI(), e.getMessage(), e);
+                    status = 500;
+                    body = error(e.getMessage());
+                }
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        }
+    }
+
+    private byte[] status(Map<String, String> parameters) throws SQLException, IOException {
+        int limit = parameters.containsKey("limit") ? parseLimit(parameters.get("limit")) : -1;
+        Cached cached = statusCache.get(limit);
+        if (isFresh(cached)) {
+            return cached.body();
+        }
+        connectionLock.lock();
+        try {
+            cached = statusCache.get(limit);
+            if (isFresh(cached)) {
+                return cached.body();
+            }
+            long migrationsModified = migrationsModified();
+            MigrationStatus status = migrationTool().getStatus(limit);
+            byte[] body = json(json -> MigrationTool.writeJson(json, status));
+            statusCache.put(limit, new Cached(body, migrationsModified, System.nanoTime() + cacheTtlNanos));
+            return body;
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private byte[] migrate(Map<String, String> parameters) throws SQLException, IOException {
+        Cached cached = lastMigration;
+        if (isFresh(cached)) {
+            return cached.body();
+        }
+        connectionLock.lock();
+        try {
+            // a concurrent request may have migrated while this one waited
+            cached = lastMigration;
+            if (isFresh(cached)) {
+                return cached.body();
+            }
+            long migrationsModified = migrationsModified();
+            MigrationTool migrationTool = migrationTool();
+            invalidate();
+            migrationTool.migrate();
+            MigrationStatus status = migrationTool.getStatus(0);
+            lastMigration = new Cached(result("up-to-date", status), migrationsModified,
+                    System.nanoTime() + cacheTtlNanos);
+            return result("migrated", status);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private byte[] rollback(Map<String, String> parameters) throws SQLException, IOException {
+        String version = parameters.get("version");
+        if (version == null || version.isBlank()) {
+            throw new IllegalArgumentException("Missing version parameter");
+        }
+        connectionLock.lock();
+        try {
+            MigrationTool migrationTool = migrationTool();
+            invalidate();
+            migrationTool.rollback(version);
+            return result("rolled-back", migrationTool.getStatus(0));
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private static byte[] result(String result, MigrationStatus status) throws IOException {
+        return json(json -> {
+            json.writeStartObject();
+            json.writeStringField("result", result);
+            json.writeFieldName("status");
+            MigrationTool.writeJson(json, status);
+            json.writeEndObject();
+        });
+    }
+
+    private void invalidate() {
+        lastMigration = null;
+        statusCache.clear();
+    }
+
+    private boolean isFresh(Cached cached) throws IOException {
+        return cached != null && System.nanoTime() - cached.expiresAt() < 0
+                && cached.migrationsModified() == migrationsModified();
+    }
+
+    // bundled scripts cannot change while the server runs
+    private long migrationsModified() throws IOException {
+        String location = config.getMigrationsLocation();
+        if (location.startsWith("classpath:")) {
+            return 0L;
+        }
+        Path dir = Paths.get(location);
+        return Files.getLastModifiedTime(dir).toMillis();
+    }
+
+    private static int parseLimit(String limit) {
+        try {
+            int value = Integer.parseInt(limit);
+            if (value < -1) {
+                throw new IllegalArgumentException("limit must be -1 or more: " + limit);
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid limit: " + limit, e);
+        }
+    }
+
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals >= 0 ? pair.substring(0, equals) : pair;
+            String value = equals >= 0 ? pair.substring(equals + 1) : "";
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private interface JsonWriter {
+        void write(JsonGenerator json) throws IOException;
+    }
+
+    private static byte[] json(JsonWriter writer) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonGenerator json = JSON.createGenerator(output)) {
+            writer.write(json);
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] error(String message) throws IOException {
+        return json(json -> {
+            json.writeStartObject();
+            json.writeStringField("error", message);
+            json.writeEndObject();
+        });
+    }
+}
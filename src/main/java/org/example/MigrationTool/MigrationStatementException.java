@@ -0,0 +1,37 @@
+package org.example.MigrationTool;
+
+import lombok.Getter;
+import org.example.MigrationFile.SqlStatement;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when a single statement of a migration script fails.
+ * Carries the line of the script at which the failed statement starts.
+ */
+@Getter
+public class MigrationStatementException extends SQLException {
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_SQL_LENGTH = 200;
+
+    private final int lineNumber;
+    private final String statementSql;
+
+    public MigrationStatementException(SqlStatement statement, SQLException cause) {
+        super("Statement at line " + statement.getLineNumber() + " failed (" + abbreviate(statement.getSql()) + "): "
+                + rootMessage(cause), cause.getSQLState(), cause.getErrorCode(), cause);
+        this.lineNumber = statement.getLineNumber();
+        this.statementSql = statement.getSql();
+    }
+
+    private static String abbreviate(String sql) {
+        String singleLine = sql.replaceAll("\\s+", " ");
+        return singleLine.length() <= MAX_SQL_LENGTH ? singleLine : singleLine.substring(0, MAX_SQL_LENGTH) + "...";
+    }
+
+    // batch failures carry the server error as the next exception
+    private static String rootMessage(SQLException cause) {
+        SQLException next = cause.getNextException();
+        return next != null ? next.getMessage() : cause.getMessage();
+    }
+}
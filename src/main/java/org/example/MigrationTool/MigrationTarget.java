@@ -0,0 +1,15 @@
+package org.example.MigrationTool;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A database, or a schema inside a database, migrated by {@link MigrationFanOut}.
+ */
+@Data
+@Builder
+public class MigrationTarget {
+    private final String name;
+    private final String url;
+    private final String schema; // null to use the connection default
+}
@@ -1,15 +1,35 @@
 package org.example.MigrationTool;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import lombok.extern.slf4j.Slf4j;
+import org.example.DBConnectionManager.ConnectionManager;
+import org.example.Metrics.MetricsRegistry;
+import org.example.MigrationFile.ChecksumCache;
 import org.example.MigrationFile.MigrationFile;
 import org.example.MigrationFile.MigrationFileReader;
+import org.example.MigrationFile.MigrationIndex;
+import org.example.MigrationFile.MigrationManifest;
+import org.example.MigrationFile.MigrationVersion;
+import org.example.MigrationReport.MigrationStatus;
+import org.example.MigrationReport.ValidationResult;
 import org.example.Utils.PropertiesUtils;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 /**
  * Handles the migration process. Contains core logic
  */
@@ -18,24 +38,27 @@ public class MigrationTool {
     private final MigrationExecutor migrationExecutor;
     private final Connection connection;
     private final PropertiesUtils propertiesUtils;
-    private final MigrationFileReader migrationFileReader = new MigrationFileReader();
+    private final MigrationFileReader migrationFileReader;
+    private final ConnectionManager connectionManager;
 
 
     public MigrationTool(MigrationExecutor migrationExecutor, Connection connection, PropertiesUtils propertiesUtils) {
+        this(migrationExecutor, connection, propertiesUtils, new ConnectionManager(propertiesUtils));
+    }
+
+    public MigrationTool(MigrationExecutor migrationExecutor, Connection connection, PropertiesUtils propertiesUtils,
+                         ConnectionManager connectionManager) {
         this.migrationExecutor = migrationExecutor;
         this.connection = connection;
         this.propertiesUtils = propertiesUtils;
+        this.migrationFileReader = new MigrationFileReader(propertiesUtils);
+        this.connectionManager = connectionManager;
     }
-    //Executes the migration process in a single transaction,
+    //Executes the migration process with the configured transaction mode (a single transaction by default),
     // checks if the db is locked or not, rollbacks the transaction in case of any error
     public void migrate() throws SQLException {
-        MigrationLock migrationLock = new MigrationLock(connection);
-
-        if (migrationLock.isLocked()) {
-            log.error("Cannot start migration. Database is locked.");
-            throw new IllegalStateException("Database is locked by another process.");
-        }
-
+        MigrationLock migrationLock = MigrationLock.create(connection, propertiesUtils, connectionManager);
+        // fails fast with IllegalStateException if another process holds the lock
         migrationLock.lock(propertiesUtils.getUsername());
 
         log.info("Migration starts");
@@ -46,46 +69,189 @@ public class MigrationTool {
             String currentVersion = migrationExecutor.getCurrentVersion();
             log.info("Current database version: "+(currentVersion != null ? currentVersion : "None"));
 
-            List<MigrationFile> migrationFiles = migrationFileReader.getMigrationFiles();
-            for (MigrationFile migrationFile : migrationFiles) {
-                if (currentVersion == null || migrationFile.getVersion().compareTo(currentVersion) > 0) {
-                    migrationExecutor.applyMigration(
-                            migrationFile.getVersion(),
-                            migrationFile.getDescription(),
-                            migrationFile.getSql()
-                    );
-                }}
+            int parallelism = propertiesUtils.getMigrationParallelism();
+            String transactionMode = propertiesUtils.getTransactionMode();
+            if (currentVersion == null) {
+                currentVersion = applyBaseline();
+                if (currentVersion != null && "per-migration".equals(transactionMode)) {
+                    migrationLock.verifyHeld();
+                    connection.commit();
+                }
+            }
+            if (parallelism > 1) {
+                migrateGraph(parallelism);
+                for (MigrationFile repeatable : changedRepeatables()) {
+                    migrationExecutor.applyRepeatable(repeatable);
+                    migrationLock.verifyHeld();
+                    connection.commit();
+                }
+                log.info("All migrations applied successfully");
+                return;
+            }
+
+            // Only pending migrations are listed; their scripts are opened one at a time
+            List<MigrationFile> pendingMigrations = new ArrayList<>(skippedMigrations(currentVersion));
+            pendingMigrations.addAll(migrationFileReader.getPendingMigrations(currentVersion));
+            for (MigrationFile migrationFile : pendingMigrations) {
+                // non-transactional migrations commit the migrations applied before them
+                apply(migrationFile, transactionMode, migrationLock);
+            }
+            // repeatable migrations run after all versioned ones, so they see the final schema
+            for (MigrationFile repeatable : changedRepeatables()) {
+                apply(repeatable, transactionMode, migrationLock);
+            }
+            migrationLock.verifyHeld();
             connection.commit();
             log.info("All migrations applied successfully");
 
 
-        }catch (SQLException | IOException e) {
-
+        }catch (SQLException | IOException | RuntimeException e) {
+            // invalid script directives surface as runtime exceptions and must not commit the migrations before them
             connection.rollback();
             log.error("Migration process failed: {}", e.getMessage(), e);
             throw new SQLException("Migration process failed", e);
         } finally {
             migrationLock.unlock();
             connection.setAutoCommit(true);
+            migrationExecutor.flushReports();
+            writeMetrics();
         }
         log.info("Migration process ends");
     }
+    // Applies a single migration within the configured transaction mode
+    private void apply(MigrationFile migrationFile, String transactionMode, MigrationLock migrationLock)
+            throws SQLException, IOException {
+        Savepoint savepoint = "savepoint".equals(transactionMode) ? connection.setSavepoint() : null;
+        try {
+            if (migrationFile.isRepeatable()) {
+                migrationExecutor.applyRepeatable(migrationFile);
+            } else {
+                migrationExecutor.applyMigration(migrationFile);
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            if (savepoint != null) {
+                keepMigrationsBefore(savepoint, migrationFile, migrationLock);
+            }
+            throw e;
+        }
+        if ("per-migration".equals(transactionMode)) {
+            migrationLock.verifyHeld();
+            connection.commit();
+        }
+    }
+    // An empty database starts from the newest baseline snapshot instead of replaying the history it covers
+    private String applyBaseline() throws SQLException, IOException {
+        MigrationFile baseline = migrationFileReader.getBaseline();
+        if (baseline == null) {
+            return null;
+        }
+        ChecksumCache cache = ChecksumCache.load(propertiesUtils.getCachePath());
+        List<MigrationFile> covered = migrationFileReader.getMigrationsCoveredBy(baseline.getVersion(), cache);
+        saveChecksumCache(cache);
+        migrationExecutor.applyBaseline(baseline, covered);
+        return baseline.getVersion();
+    }
+    // Lists the repeatable migrations whose script differs from the one last applied; unchanged scripts are
+    // compared through the checksum cache without being read
+    private List<MigrationFile> changedRepeatables() throws SQLException, IOException {
+        ChecksumCache cache = ChecksumCache.load(propertiesUtils.getCachePath());
+        List<MigrationFile> repeatables = migrationFileReader.getRepeatableMigrations(cache);
+        saveChecksumCache(cache);
+        if (repeatables.isEmpty()) {
+            return repeatables;
+        }
+        Map<String, String> applied = migrationExecutor.getAppliedRepeatables();
+        List<MigrationFile> changed = new ArrayList<>();
+        for (MigrationFile repeatable : repeatables) {
+            if (!repeatable.getChecksum().equals(applied.get(repeatable.getDescription()))) {
+                changed.add(repeatable);
+            }
+        }
+        log.info("{} of {} repeatable migrations changed", changed.size(), repeatables.size());
+        return changed;
+    }
+    private void saveChecksumCache(ChecksumCache cache) {
+        try {
+            cache.save();
+        } catch (IOException e) {
+            log.warn("Failed to save the checksum cache: {}", e.getMessage());
+        }
+    }
+    // Dumps the process-wide metrics in Prometheus text format next to the reports
+    private void writeMetrics() {
+        if (!propertiesUtils.isMetricsEnabled()) {
+            return;
+        }
+        try {
+            MetricsRegistry.global().writePrometheus(Paths.get(propertiesUtils.getReportsPath()));
+        } catch (IOException e) {
+            log.warn("Failed to write metrics: {}", e.getMessage());
+        }
+    }
+    // Undoes the failed migration only and commits the ones applied before it, so a re-run resumes at the failed one
+    private void keepMigrationsBefore(Savepoint savepoint, MigrationFile failedMigration, MigrationLock migrationLock)
+            throws SQLException {
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            // a non-transactional migration already committed and released the savepoint
+            connection.rollback();
+        }
+        migrationLock.verifyHeld();
+        connection.commit();
+        log.info("Migrations before {} were committed; re-run migrate to resume from it",
+                failedMigration.isRepeatable() ? "repeatable migration " + failedMigration.getDescription()
+                        : "version " + failedMigration.getVersion());
+    }
+    // Applies the unapplied migrations as a dependency graph, every migration in its own transaction.
+    // Pending means "not applied" here, since independent migrations may be applied out of version order
+    private void migrateGraph(int parallelism) throws SQLException, IOException {
+        List<String> appliedMigrations = migrationExecutor.getAppliedMigrations();
+        Set<MigrationVersion> applied = new HashSet<>();
+        for (String version : appliedMigrations) {
+            applied.add(MigrationVersion.parse(version));
+        }
+        List<MigrationFile> pendingMigrations = migrationFileReader.getMigrationFiles().stream()
+                .filter(migrationFile -> !applied.contains(MigrationVersion.parse(migrationFile.getVersion())))
+                .toList();
+        connection.commit();
+
+        MigrationGraph graph = MigrationGraph.build(pendingMigrations, appliedMigrations);
+        new ParallelMigrationRunner(connectionManager, propertiesUtils, parallelism).run(graph);
+    }
+    // Versions up to the current one without a schema_version row, e.g. left behind by a failed dependency graph
+    // run. Equal counts of rows and scripts rule them out, so the applied versions are only listed on a mismatch,
+    // which scripts removed after a baseline also cause
+    private List<MigrationFile> skippedMigrations(String currentVersion) throws SQLException, IOException {
+        if (currentVersion == null
+                || migrationExecutor.getAppliedCount() == migrationFileReader.getMigrationCountUpTo(currentVersion)) {
+            return List.of();
+        }
+        List<MigrationFile> skipped = migrationFileReader.getUnappliedMigrationsUpTo(currentVersion,
+                migrationExecutor.getAppliedMigrations());
+        if (skipped.isEmpty()) {
+            return skipped;
+        }
+        List<String> versions = skipped.stream().map(MigrationFile::getVersion).toList();
+        if (!propertiesUtils.isOutOfOrder()) {
+            throw new IllegalStateException("Versions " + versions + " are not applied but below the current version "
+                    + currentVersion + "; set migration.out.of.order=true to apply them");
+        }
+        log.info("Applying versions {} below the current version {} out of order", versions, currentVersion);
+        return skipped;
+    }
     //Executes the rollback process in a single transaction,
     // checks if the db is locked or not, rollbacks the transaction in case of any error
     public void rollback(String targetVersion) throws SQLException {
-        MigrationLock migrationLock = new MigrationLock(connection);
-        if (migrationLock.isLocked()) {
-            log.error("Cannot start rollback. Database is locked.");
-            throw new IllegalStateException("Database is locked by another process.");
-        }
-
+        MigrationLock migrationLock = MigrationLock.create(connection, propertiesUtils, connectionManager);
         migrationLock.lock(propertiesUtils.getUsername());
 
 
         try {
             connection.setAutoCommit(false);
             String currentVersion = migrationExecutor.getCurrentVersion();
-            if (currentVersion == null || targetVersion.compareTo(currentVersion) >= 0) {
+            if (currentVersion == null
+                    || MigrationVersion.parse(targetVersion).compareTo(MigrationVersion.parse(currentVersion)) >= 0) {
                 log.info("No rollback needed. Target version: " + targetVersion + ", Current version: " + currentVersion);
                 return;
             }
@@ -95,24 +261,23 @@ public class MigrationTool {
             // Fetch rollback files for the range (targetVersion, currentVersion]
             List<MigrationFile> rollbackFiles = migrationFileReader.getRollbackFiles(targetVersion, currentVersion);
             for (MigrationFile rollbackFile : rollbackFiles) {
-                migrationExecutor.rollbackMigration(
-                        rollbackFile.getVersion(),
-                        rollbackFile.getDescription(),
-                        rollbackFile.getSql()
-                );
+                try (Reader script = rollbackFile.openReader()) {
+                    migrationExecutor.rollbackMigration(
+                            rollbackFile.getVersion(),
+                            rollbackFile.getDescription(),
+                            script
+                    );
+                }
             }
 
             // Remove schema_version entries for versions higher than the target version
-            String deleteVersionsSql = "DELETE FROM schema_version WHERE version > ?";
-            try (PreparedStatement preparedStatement = connection.prepareStatement(deleteVersionsSql)) {
-                preparedStatement.setString(1, targetVersion);
-                preparedStatement.executeUpdate();
-            }
+            migrationExecutor.removeVersionsAbove(targetVersion);
             log.debug("just before the commit");
+            migrationLock.verifyHeld();
 
             connection.commit();
             log.info("Rollback completed successfully to version: " + targetVersion);
-        } catch (SQLException | IOException e) {
+        } catch (SQLException | IOException | RuntimeException e) {
 
             connection.rollback();
             log.error("Rollback process failed: {}", e.getMessage(), e);
@@ -121,39 +286,260 @@ public class MigrationTool {
             migrationLock.unlock();
             connection.setAutoCommit(true);
             log.debug("set autocommit true");
+            migrationExecutor.flushReports();
+            writeMetrics();
 
         }
         log.debug("Rollback process ends");
     }
     /**
-     * Displays the current status of migrations, including the current version and applied migrations.
+     * Captures the current schema as a baseline snapshot {@code B<version>__baseline.sql} of the current version in
+     * the migrations directory, together with the rows of the tables the covered migrations seed. Empty databases are then migrated from the snapshot plus the later migrations;
+     * databases that already have applied migrations are not affected. The migration lock is held while the schema
+     * is dumped, so no migration runs in the meantime.
      *
+     * @return the written baseline script.
      * @throws SQLException if a database error occurs
+     * @throws IOException if the schema cannot be dumped or the script cannot be written
+     * @throws IllegalStateException if no migration has been applied or the migrations are bundled in the jar
      */
-    public void status() throws SQLException{
+    public Path baseline() throws SQLException, IOException {
+        String location = propertiesUtils.getMigrationsLocation();
+        if (location.startsWith("classpath:")) {
+            throw new IllegalStateException("Cannot write a baseline into " + location);
+        }
+        MigrationLock migrationLock = MigrationLock.create(connection, propertiesUtils, connectionManager);
+        migrationLock.lock(propertiesUtils.getUsername());
         try {
-            List<String> appliedMigrations = migrationExecutor.getAppliedMigrations();
             String currentVersion = migrationExecutor.getCurrentVersion();
-
-            if (currentVersion != null) {
-                System.out.println("Current database version: " + currentVersion);
-            } else {
-                System.out.println("No migrations have been applied yet.");
+            if (currentVersion == null) {
+                throw new IllegalStateException("No migrations have been applied, there is no schema to baseline");
+            }
+            // the rows seeded by the covered migrations, or by an older baseline, are part of the snapshot
+            List<MigrationFile> covered = new ArrayList<>();
+            MigrationFile previousBaseline = migrationFileReader.getBaseline();
+            if (previousBaseline != null) {
+                covered.add(previousBaseline);
             }
+            ChecksumCache cache = ChecksumCache.load(propertiesUtils.getCachePath());
+            covered.addAll(migrationFileReader.getMigrationsCoveredBy(currentVersion, cache));
+            saveChecksumCache(cache);
+            return new SchemaSnapshot(propertiesUtils).capture(currentVersion, Paths.get(location), covered);
+        } finally {
+            migrationLock.unlock();
+        }
+    }
+    /**
+     * Validates the applied migrations: the checksum recorded in schema_version for every applied version is compared
+     * with the checksum of its script. Scripts are hashed through the local checksum cache under {@code cache.path},
+     * so only files changed since the last validation are read. Versions covered by a baseline snapshot may have no
+     * script.
+     *
+     * @return the result of the validation.
+     * @throws SQLException if a database error occurs
+     * @throws IOException if a script cannot be read
+     */
+    public ValidationResult validate() throws SQLException, IOException {
+        long start = System.nanoTime();
+        Map<String, String> appliedChecksums = migrationExecutor.getAppliedChecksums();
+        MigrationIndex<MigrationManifest.Entry> scripts = migrationFileReader.getMigrationManifest().index();
+        ChecksumCache cache = ChecksumCache.load(propertiesUtils.getCachePath());
+        // scripts covered by a baseline may have been removed after squashing the history
+        MigrationFile baseline = migrationFileReader.getBaseline();
+        MigrationVersion baselineVersion = baseline != null ? MigrationVersion.parse(baseline.getVersion()) : null;
 
-            System.out.println("Applied migrations:");
-            if (appliedMigrations.isEmpty()) {
-                System.out.println("No migrations applied.");
-            } else {
-                for (String version : appliedMigrations) {
-                    System.out.println("- " + version);
+        List<String> mismatched = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        List<String> unverified = new ArrayList<>();
+        for (Map.Entry<String, String> applied : appliedChecksums.entrySet()) {
+            String version = applied.getKey();
+            MigrationManifest.Entry script = scripts.get(MigrationVersion.parse(version));
+            if (script == null) {
+                if (baselineVersion == null || MigrationVersion.parse(version).compareTo(baselineVersion) > 0) {
+                    missing.add(version);
                 }
+            } else if (applied.getValue() == null) {
+                unverified.add(version);
+            } else if (!applied.getValue().equals(migrationFileReader.getMigrationChecksum(script, cache))) {
+                mismatched.add(version);
+                log.error("Migration {} was changed after it was applied: {}", version, script.getFileName());
             }
+        }
+        saveChecksumCache(cache);
 
-        } catch (SQLException e) {
+        ValidationResult result = ValidationResult.builder()
+                .checked(appliedChecksums.size())
+                .hashedFiles(cache.getHashedFiles())
+                .durationMillis((System.nanoTime() - start) / 1_000_000)
+                .mismatched(mismatched)
+                .missing(missing)
+                .unverified(unverified)
+                .build();
+        log.info("Validated {} applied migrations in {} ms ({} scripts hashed)",
+                result.getChecked(), result.getDurationMillis(), result.getHashedFiles());
+        return result;
+    }
+    /**
+     * Computes the status of the database from a single streamed query of schema_version, merged with the migration
+     * scripts: versions applied, pending (a script that was not applied) and missing (applied without a script,
+     * ignoring versions covered by a baseline). Neither the history nor the scripts are collected beyond the limit.
+     *
+     * @param limit the maximum number of versions per list, -1 for all; the counts are not limited.
+     * @return the status of the database.
+     * @throws SQLException if a database error occurs
+     * @throws IOException if the migration scripts cannot be listed
+     */
+    public MigrationStatus getStatus(int limit) throws SQLException, IOException {
+        MigrationIndex<MigrationManifest.Entry> scripts = migrationFileReader.getMigrationManifest().index();
+        MigrationFile baseline = migrationFileReader.getBaseline();
+        MigrationVersion baselineVersion = baseline != null ? MigrationVersion.parse(baseline.getVersion()) : null;
+
+        BitSet appliedScripts = new BitSet(scripts.size());
+        // min-heap keeping the highest applied versions, max-heap keeping the lowest missing ones
+        PriorityQueue<MigrationVersion> applied = new PriorityQueue<>();
+        PriorityQueue<MigrationVersion> missing = new PriorityQueue<>(Comparator.reverseOrder());
+        MigrationVersion[] current = new MigrationVersion[1];
+        int[] counts = new int[2]; // applied, missing
+        migrationExecutor.forEachAppliedVersion(text -> {
+            MigrationVersion version = MigrationVersion.parse(text);
+            counts[0]++;
+            if (current[0] == null || version.compareTo(current[0]) > 0) {
+                current[0] = version;
+            }
+            keep(applied, version, limit);
+            int index = scripts.indexOf(version);
+            if (index >= 0) {
+                appliedScripts.set(index);
+            } else if (baselineVersion == null || version.compareTo(baselineVersion) > 0) {
+                counts[1]++;
+                keep(missing, version, limit);
+            }
+        });
+
+        List<String> pendingVersions = new ArrayList<>();
+        int pendingCount = scripts.size() - appliedScripts.cardinality();
+        for (int index = appliedScripts.nextClearBit(0);
+             index < scripts.size() && (limit < 0 || pendingVersions.size() < limit);
+             index = appliedScripts.nextClearBit(index + 1)) {
+            pendingVersions.add(scripts.all().get(index).getVersion());
+        }
+
+        return MigrationStatus.builder()
+                .currentVersion(current[0] != null ? current[0].toString() : null)
+                .appliedCount(counts[0])
+                .pendingCount(pendingCount)
+                .missingCount(counts[1])
+                .appliedVersions(sorted(applied))
+                .pendingVersions(pendingVersions)
+                .missingVersions(sorted(missing))
+                .build();
+    }
+
+    private static void keep(PriorityQueue<MigrationVersion> versions, MigrationVersion version, int limit) {
+        if (limit == 0) {
+            return;
+        }
+        versions.add(version);
+        if (limit > 0 && versions.size() > limit) {
+            versions.poll();
+        }
+    }
+
+    private static List<String> sorted(PriorityQueue<MigrationVersion> versions) {
+        return versions.stream().sorted().map(MigrationVersion::toString).toList();
+    }
+    /**
+     * Displays the current status of migrations, including the current version and applied migrations.
+     *
+     * @throws SQLException if a database error occurs
+     */
+    public void status() throws SQLException{
+        try {
+            status("text", -1);
+        } catch (SQLException | IOException e) {
             System.err.println("Error fetching status: " + e.getMessage());
         }
     }
+    /**
+     * Displays the status of migrations as text or as a JSON document on standard output.
+     *
+     * @param format {@code text} or {@code json}.
+     * @param limit  the maximum number of versions listed per section, -1 for all and 0 for the counts only.
+     * @throws SQLException if a database error occurs
+     * @throws IOException if the migration scripts cannot be listed
+     * @throws IllegalArgumentException if the format is unknown.
+     */
+    public void status(String format, int limit) throws SQLException, IOException {
+        if (!"text".equals(format) && !"json".equals(format)) {
+            throw new IllegalArgumentException("Unknown status format: " + format);
+        }
+        MigrationStatus status = getStatus(limit);
+        if ("json".equals(format)) {
+            printJson(status);
+            return;
+        }
+
+        if (status.getCurrentVersion() != null) {
+            System.out.println("Current database version: " + status.getCurrentVersion());
+        } else {
+            System.out.println("No migrations have been applied yet.");
+        }
+        System.out.println("Applied: " + status.getAppliedCount() + ", pending: " + status.getPendingCount()
+                + ", missing: " + status.getMissingCount());
+
+        System.out.println("Applied migrations:");
+        if (status.getAppliedCount() == 0) {
+            System.out.println("No migrations applied.");
+        } else {
+            printVersions(status.getAppliedVersions(), status.getAppliedCount());
+        }
+        if (status.getPendingCount() > 0) {
+            System.out.println("Pending migrations:");
+            printVersions(status.getPendingVersions(), status.getPendingCount());
+        }
+        if (status.getMissingCount() > 0) {
+            System.out.println("Applied but missing a script:");
+            printVersions(status.getMissingVersions(), status.getMissingCount());
+        }
+    }
+
+    private static void printVersions(List<String> versions, int count) {
+        for (String version : versions) {
+            System.out.println("- " + version);
+        }
+        if (versions.size() < count) {
+            System.out.println("  (" + (count - versions.size()) + " more)");
+        }
+    }
+
+    private static void printJson(MigrationStatus status) throws IOException {
+        JsonFactory jsonFactory = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (JsonGenerator json = jsonFactory.createGenerator(System.out)) {
+            writeJson(json, status);
+        }
+        System.out.println();
+    }
+
+    // the JSON document of status --format json, also served by the serve daemon
+    static void writeJson(JsonGenerator json, MigrationStatus status) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("currentVersion", status.getCurrentVersion());
+        json.writeNumberField("applied", status.getAppliedCount());
+        json.writeNumberField("pending", status.getPendingCount());
+        json.writeNumberField("missing", status.getMissingCount());
+        writeVersions(json, "appliedVersions", status.getAppliedVersions());
+        writeVersions(json, "pendingVersions", status.getPendingVersions());
+        writeVersions(json, "missingVersions", status.getMissingVersions());
+        json.writeEndObject();
+    }
+
+    private static void writeVersions(JsonGenerator json, String name, List<String> versions) throws IOException {
+        json.writeArrayFieldStart(name);
+        for (String version : versions) {
+            json.writeString(version);
+        }
+        json.writeEndArray();
+    }
 }
 
 
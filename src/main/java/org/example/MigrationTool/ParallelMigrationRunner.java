@@ -0,0 +1,103 @@
+package org.example.MigrationTool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.DBConnectionManager.ConnectionManager;
+import org.example.MigrationFile.MigrationFile;
+import org.example.Utils.PropertiesUtils;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Applies the migrations of a {@link MigrationGraph}, running independent migrations concurrently.
+ * Every migration runs on its own pooled connection in its own transaction and is recorded in schema_version
+ * when it commits. After the first failure no new migrations are started; running ones are allowed to finish,
+ * so the database is left with every migration that completed.
+ */
+@Slf4j
+public class ParallelMigrationRunner {
+    private final ConnectionManager connectionManager;
+    private final PropertiesUtils config;
+    private final int parallelism;
+
+    public ParallelMigrationRunner(ConnectionManager connectionManager, PropertiesUtils config, int parallelism) {
+        this.connectionManager = connectionManager;
+        this.config = config;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Applies all migrations of the graph.
+     *
+     * @param graph the migrations to apply.
+     * @throws SQLException if a migration fails; the first failure is the cause, later ones are suppressed.
+     */
+    public void run(MigrationGraph graph) throws SQLException {
+        log.info("Applying {} migrations with parallelism {}", graph.size(), parallelism);
+        Deque<MigrationFile> ready = new ArrayDeque<>();
+        Exception failure = null;
+        int running = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<MigrationFile> completion = new ExecutorCompletionService<>(executor);
+            while (!graph.isComplete()) {
+                if (failure == null) {
+                    ready.addAll(graph.takeReady());
+                    while (running < parallelism && !ready.isEmpty()) {
+                        MigrationFile migration = ready.poll();
+                        completion.submit(() -> apply(migration));
+                        running++;
+                    }
+                }
+                if (running == 0) {
+                    break;
+                }
+                Future<MigrationFile> finished = completion.take();
+                running--;
+                try {
+                    graph.complete(finished.get());
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while applying migrations", e);
+        }
+
+        if (failure != null) {
+            throw new SQLException("Parallel migration failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    private MigrationFile apply(MigrationFile migration) throws SQLException, IOException {
+        try (Connection connection = connectionManager.borrow()) {
+            if (config.getSchema() != null) {
+                connection.setSchema(config.getSchema());
+            }
+            connection.setAutoCommit(false);
+            try {
+                new MigrationExecutor(connection, config).applyMigration(migration);
+                connection.commit();
+            } catch (SQLException | IOException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+        return migration;
+    }
+}
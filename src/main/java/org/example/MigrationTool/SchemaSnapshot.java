@@ -0,0 +1,208 @@
+package org.example.MigrationTool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.MigrationFile.MigrationFile;
+import org.example.MigrationFile.SqlStatement;
+import org.example.MigrationFile.SqlStatementSplitter;
+import org.example.Utils.PropertiesUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Captures the current schema of the database as a baseline script {@code B<version>__baseline.sql}.
+ * The schema is dumped by an external command ({@code baseline.dump.command}, {@code pg_dump --schema-only} by
+ * default) and post-processed so that it can be executed by the migration tool itself.
+ * <p>
+ * The versions covered by the baseline are recorded as applied when an empty database is migrated from it, so rows
+ * inserted by those migrations (seed and reference data) must be part of the snapshot as well. The tables they
+ * populate - the tables of {@code .csv} data migrations and the targets of {@code INSERT}, {@code MERGE} and
+ * {@code COPY ... FROM} statements - are dumped a second time with {@code --data-only --column-inserts}, and their
+ * current rows are appended to the schema.
+ */
+@Slf4j
+public class SchemaSnapshot {
+    // tables owned by the migration tool; their rows describe a database, not the schema
+    private static final List<String> TOOL_TABLES = List.of(
+            "schema_version", "migration_lock", "backfill_checkpoint", "repeatable_migration");
+    // pg_dump clears search_path for the session, which would hide schema_version from the statements after it
+    private static final String CLEAR_SEARCH_PATH = "SELECT pg_catalog.set_config('search_path', '', false);";
+    private static final String IDENTIFIER = "(?:\"(?:[^\"]|\"\")+\"|[\\w$]+)";
+    // the statements that seed a table; UPDATE and DELETE only change rows that are already there
+    private static final Pattern SEEDING_STATEMENT = Pattern.compile(
+            "^(?:INSERT\\s+INTO|MERGE\\s+INTO|COPY)\\s+(?:ONLY\\s+)?(" + IDENTIFIER + "(?:\\." + IDENTIFIER + ")?)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern QUALIFIED = Pattern.compile(IDENTIFIER + "\\." + IDENTIFIER);
+    private static final Pattern COPY_FROM = Pattern.compile("^COPY\\s.*\\sFROM\\s", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final PropertiesUtils config;
+
+    public SchemaSnapshot(PropertiesUtils config) {
+        this.config = config;
+    }
+
+    /**
+     * Dumps the schema, and the data of the tables seeded by the covered migrations, into a baseline script of the
+     * given version in the given directory.
+     * The script is written atomically, so an interrupted dump leaves no partial baseline behind.
+     *
+     * @param version the version the database schema is at.
+     * @param dir     the migrations directory.
+     * @param covered the migrations covered by the baseline, including a previous baseline script.
+     * @return the written baseline script.
+     * @throws IOException if the dump command fails, a covered script cannot be read or the script cannot be written.
+     */
+    public Path capture(String version, Path dir, List<MigrationFile> covered) throws IOException {
+        Path target = dir.resolve("B" + version + "__baseline.sql");
+        Set<String> seededTables = seededTables(covered);
+        Path schemaDump = Files.createTempFile(dir, "baseline", ".dump");
+        Path dataDump = Files.createTempFile(dir, "baseline", ".dump");
+        try {
+            runDump(schemaCommand(), schemaDump);
+            if (!seededTables.isEmpty()) {
+                log.warn("The baseline includes the current rows of the tables seeded by the covered migrations: {}",
+                        String.join(", ", seededTables));
+                runDump(dataCommand(seededTables), dataDump);
+            }
+            Path temp = Files.createTempFile(dir, "baseline", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write("-- Baseline of version " + version + ", captured " + LocalDateTime.now().withNano(0));
+                writer.newLine();
+                copyStatements(schemaDump, writer);
+                copyStatements(dataDump, writer);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(schemaDump);
+            Files.deleteIfExists(dataDump);
+        }
+        log.info("Captured the schema of version {} in {}", version, target);
+        return target;
+    }
+
+    /**
+     * Finds the tables populated by the given migrations: the target tables of {@code .csv} data migrations and of
+     * the {@code INSERT}, {@code MERGE} and {@code COPY ... FROM} statements of the scripts. Backfill scripts only
+     * fill columns of existing rows and are ignored, as are the tables of the migration tool.
+     *
+     * @param migrations the migrations to scan.
+     * @return the table names as written in the scripts, in the order they are first populated.
+     * @throws IOException if a script cannot be read.
+     */
+    public static Set<String> seededTables(List<MigrationFile> migrations) throws IOException {
+        Set<String> tables = new LinkedHashSet<>();
+        for (MigrationFile migration : migrations) {
+            if (migration.isDataLoad()) {
+                tables.add(migration.getDescription());
+                continue;
+            }
+            if (migration.readHeader().isBackfill()) {
+                continue;
+            }
+            try (SqlStatementSplitter splitter = new SqlStatementSplitter(migration.openReader())) {
+                SqlStatement statement;
+                while ((statement = splitter.next()) != null) {
+                    Matcher matcher = SEEDING_STATEMENT.matcher(statement.getSql());
+                    if (matcher.find() && (!statement.getSql().regionMatches(true, 0, "COPY", 0, 4)
+                            || COPY_FROM.matcher(statement.getSql()).find())) {
+                        tables.add(matcher.group(1));
+                    }
+                }
+            }
+        }
+        tables.removeIf(table -> TOOL_TABLES.contains(unqualified(table).toLowerCase(Locale.ROOT)));
+        return tables;
+    }
+
+    private static String unqualified(String table) {
+        return table.substring(table.lastIndexOf('.') + 1);
+    }
+
+    // psql meta-commands (e.g. \restrict) are not SQL
+    private static void copyStatements(Path dump, BufferedWriter writer) throws IOException {
+        try (BufferedReader lines = Files.newBufferedReader(dump, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.startsWith("\\") || line.equals(CLEAR_SEARCH_PATH)) {
+                    continue;
+                }
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+    }
+
+    private List<String> schemaCommand() {
+        List<String> command = new ArrayList<>(Arrays.asList(config.getBaselineDumpCommand().trim().split("\\s+")));
+        for (String table : TOOL_TABLES) {
+            command.add("--exclude-table=" + table);
+        }
+        return command;
+    }
+
+    // the configured command without its schema-only flag; INSERT statements instead of COPY blocks, whose data
+    // lines would not survive the removal of meta-commands
+    private List<String> dataCommand(Set<String> tables) {
+        List<String> command = new ArrayList<>(Arrays.asList(config.getBaselineDumpCommand().trim().split("\\s+")));
+        command.removeIf(argument -> argument.equals("--schema-only") || argument.equals("-s"));
+        command.add("--data-only");
+        command.add("--column-inserts");
+        for (String table : tables) {
+            boolean qualified = QUALIFIED.matcher(table).matches();
+            command.add("--table=" + (qualified || config.getSchema() == null ? table : config.getSchema() + "." + table));
+        }
+        return command;
+    }
+
+    private void runDump(List<String> command, Path output) throws IOException {
+        if (config.getSchema() != null) {
+            command.add("--schema=" + config.getSchema());
+        }
+        command.add("--dbname=" + libpqUrl(config.getUrl()));
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command)
+                .redirectOutput(output.toFile())
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
+        if (config.getUsername() != null) {
+            processBuilder.environment().put("PGUSER", config.getUsername());
+        }
+        if (config.getPassword() != null) {
+            // passed through the environment so it does not show up in the process list
+            processBuilder.environment().put("PGPASSWORD", config.getPassword());
+        }
+        log.info("Running {}", command.get(0));
+        try {
+            int exitCode = processBuilder.start().waitFor();
+            if (exitCode != 0) {
+                throw new IOException(command.get(0) + " failed with exit code " + exitCode);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while dumping the schema", e);
+        }
+    }
+
+    // jdbc:postgresql://host:5432/db?ssl=true -> postgresql://host:5432/db; JDBC parameters are not libpq parameters
+    private static String libpqUrl(String jdbcUrl) {
+        if (!jdbcUrl.startsWith("jdbc:postgresql://")) {
+            throw new IllegalStateException("Baselines can only be captured from PostgreSQL databases: " + jdbcUrl);
+        }
+        String url = jdbcUrl.substring("jdbc:".length());
+        int query = url.indexOf('?');
+        return query >= 0 ? url.substring(0, query) : url;
+    }
+}
@@ -0,0 +1,305 @@
+package org.example.MigrationTool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.DBConnectionManager.ConnectionManager;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+/**
+ * Migration lock backed by the single row of the migration_lock table.
+ * Used for databases without advisory locks. The lock is taken with one conditional UPDATE,
+ * so checking and acquiring cannot race; the row is inserted the first time the lock is used.
+ * <p>
+ * With a lease, the holder renews {@code lease_expires_at} from a background heartbeat on its own connection
+ * (the migration connection is inside an uncommitted transaction). A lock whose lease has expired belonged to a
+ * crashed process and is taken over; the previous holder is recorded in {@code taken_over_from}/{@code taken_over_at}.
+ * Expiry is computed and compared with the database clock, never the client's. A holder that loses its lease fails
+ * its migration before committing, see {@link #verifyHeld()}. Locks written without a lease never expire.
+ */
+@Slf4j
+public class TableMigrationLock extends AbstractMigrationLock {
+    private static final String PROCESS_IDENTITY = processIdentity();
+
+    private final Duration lease;
+    private final ConnectionManager connectionManager;
+    private volatile String owner;
+    private volatile Timestamp lockedAt;
+    private volatile boolean leaseLost;
+    private volatile long lastRenewedNanos;
+    private ScheduledExecutorService heartbeat;
+    private Connection heartbeatConnection;
+
+    public TableMigrationLock(Connection connection, Duration waitTimeout) {
+        this(connection, waitTimeout, Duration.ZERO, null);
+    }
+
+    /**
+     * @param connection        the connection the lock is taken on
+     * @param waitTimeout       how long to wait for a lock held by another process
+     * @param lease             the lease length, or zero for a lock that never expires
+     * @param connectionManager provides the pooled heartbeat connection; required when a lease is used
+     */
+    public TableMigrationLock(Connection connection, Duration waitTimeout, Duration lease,
+                              ConnectionManager connectionManager) {
+        super(connection, waitTimeout, "migration_lock");
+        if (!lease.isZero() && connectionManager == null) {
+            throw new IllegalArgumentException("A leased lock needs a connection manager for its heartbeat");
+        }
+        this.lease = lease;
+        this.connectionManager = connectionManager;
+    }
+    /**
+     * Makes a single attempt to acquire the lock for the migration process,
+     * taking over a lock whose lease has expired.
+     *
+     * @param lockedBy the user or process requesting the lock
+     * @return true if the lock was acquired, false if it is held by another process
+     * @throws SQLException if a database error occurs
+     */
+    @Override
+    protected boolean tryAcquire(String lockedBy) throws SQLException {
+        log.debug("Attempting to acquire lock...");
+
+        String lockSql = """
+                UPDATE migration_lock
+                SET is_locked = TRUE,
+                    locked_at = ?,
+                    locked_by = ?,
+                    lease_expires_at = %s
+                WHERE id = 1 AND is_locked = FALSE
+                """.formatted(leaseExpiry());
+
+        String takeOverSql = """
+                UPDATE migration_lock
+                SET taken_over_from = locked_by,
+                    taken_over_at = ?,
+                    locked_at = ?,
+                    locked_by = ?,
+                    lease_expires_at = %s
+                WHERE id = 1 AND is_locked = TRUE AND lease_expires_at IS NOT NULL AND lease_expires_at < CURRENT_TIMESTAMP
+                """.formatted(leaseExpiry());
+
+        String insertLockSql = """
+                INSERT INTO migration_lock (id, is_locked, locked_at, locked_by, lease_expires_at)
+                VALUES (1, TRUE, ?, ?, %s)
+                """.formatted(leaseExpiry());
+
+        String candidateOwner = lockedBy + " (" + PROCESS_IDENTITY + ")";
+        // identifies this acquisition; lease expiry is computed by the database
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+
+        try (PreparedStatement lockStmt = connection.prepareStatement(lockSql)) {
+            lockStmt.setTimestamp(1, now);
+            lockStmt.setString(2, candidateOwner);
+            if (lockStmt.executeUpdate() == 1) {
+                return acquired(candidateOwner, now);
+            }
+        }
+
+        // the lock is either held, stale, or the row does not exist yet
+        try (PreparedStatement takeOverStmt = connection.prepareStatement(takeOverSql)) {
+            takeOverStmt.setTimestamp(1, now);
+            takeOverStmt.setTimestamp(2, now);
+            takeOverStmt.setString(3, candidateOwner);
+            if (takeOverStmt.executeUpdate() == 1) {
+                log.warn("Took over the migration lock of {} whose lease had expired", previousHolder());
+                return acquired(candidateOwner, now);
+            }
+        }
+
+        try (PreparedStatement insertLockStmt = connection.prepareStatement(insertLockSql)) {
+            insertLockStmt.setTimestamp(1, now);
+            insertLockStmt.setString(2, candidateOwner);
+            insertLockStmt.executeUpdate();
+        } catch (SQLException e) {
+            if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                log.debug("migration_lock is held by another process");
+                return false;
+            }
+            log.error("Failed to acquire lock: {}", e.getMessage());
+            throw e;
+        }
+        return acquired(candidateOwner, now);
+    }
+    /**
+     * Releases the lock held by the current process. A lock that was taken over by another process is left alone.
+     *
+     * @throws SQLException if a database error occurs
+     */
+    @Override
+    protected void release() throws SQLException {
+        log.debug("Releasing lock...");
+        stopHeartbeat();
+
+        String unlockSql = """
+                UPDATE migration_lock 
+                SET is_locked = FALSE, 
+                    locked_at = NULL, 
+                    locked_by = NULL,
+                    lease_expires_at = NULL
+                WHERE id = 1 AND locked_by = ? AND locked_at = ?
+                """;
+
+        if (owner == null) {
+            log.warn("Lock was not held.");
+            return;
+        }
+        try (PreparedStatement unlockStmt = connection.prepareStatement(unlockSql)) {
+            unlockStmt.setString(1, owner);
+            unlockStmt.setTimestamp(2, lockedAt);
+            int rowsUpdated = unlockStmt.executeUpdate();
+            if (rowsUpdated > 0) {
+                log.debug("Lock released successfully.");
+            } else {
+                log.warn("Lock was not held; it may have been taken over after its lease expired.");
+            }
+        } finally {
+            owner = null;
+            lockedAt = null;
+        }
+    }
+    /**
+     * Checks if the migration process is currently locked. A lock with an expired lease counts as unlocked.
+     *
+     * @return true if the migration is locked, false otherwise
+     * @throws SQLException if a database error occurs
+     */
+    @Override
+    public boolean isLocked() throws SQLException {
+        String checkLockSql = """
+                SELECT is_locked AND (lease_expires_at IS NULL OR lease_expires_at >= CURRENT_TIMESTAMP) AS locked
+                FROM migration_lock
+                WHERE id = 1
+                """;
+
+        try (PreparedStatement checkLockStmt = connection.prepareStatement(checkLockSql);
+             ResultSet resultSet = checkLockStmt.executeQuery()) {
+            if (resultSet.next()) {
+                boolean locked = resultSet.getBoolean("locked");
+                log.debug("Lock status: " + (locked ? "Locked" : "Unlocked"));
+                return locked;
+            }
+
+            // If no row exists, assume unlocked
+            log.debug("No lock record found. Assuming unlocked.");
+            return false;
+        }
+    }
+
+    /**
+     * Fails if the lease was lost while the lock was held: another process took the lock over, or the lease could
+     * not be renewed before it expired. Checked before the migration transaction is committed.
+     *
+     * @throws IllegalStateException if the lease was lost
+     */
+    @Override
+    public void verifyHeld() {
+        if (lease.isZero() || owner == null) {
+            return;
+        }
+        if (leaseLost || System.nanoTime() - lastRenewedNanos > lease.toNanos()) {
+            throw new IllegalStateException("Migration lock lease was lost; another process may be migrating");
+        }
+    }
+
+    private boolean acquired(String candidateOwner, Timestamp now) throws SQLException {
+        owner = candidateOwner;
+        lockedAt = now;
+        leaseLost = false;
+        lastRenewedNanos = System.nanoTime();
+        log.debug("Lock acquired successfully by: " + owner);
+        startHeartbeat();
+        return true;
+    }
+
+    private String previousHolder() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT taken_over_from FROM migration_lock WHERE id = 1");
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(1) : "unknown";
+        }
+    }
+
+    // computed from the database clock, so hosts with skewed clocks or other time zones agree on expiry
+    private String leaseExpiry() {
+        return lease.isZero() ? "NULL" : "CURRENT_TIMESTAMP + " + lease.toMillis() + " * INTERVAL '0.001' SECOND";
+    }
+
+    private void startHeartbeat() throws SQLException {
+        if (lease.isZero()) {
+            return;
+        }
+        heartbeatConnection = connectionManager.borrow();
+        String schema = connection.getSchema();
+        if (schema != null) {
+            // renew the lock row in the same schema as the migration connection
+            heartbeatConnection.setSchema(schema);
+        }
+        heartbeat = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("migration-lock-heartbeat").factory());
+        long interval = Math.max(1, lease.toMillis() / 3);
+        heartbeat.scheduleAtFixedRate(this::renewLease, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void renewLease() {
+        String renewSql = """
+                UPDATE migration_lock
+                SET lease_expires_at = %s
+                WHERE id = 1 AND is_locked = TRUE AND locked_by = ? AND locked_at = ?
+                """.formatted(leaseExpiry());
+        long start = System.nanoTime();
+        try (PreparedStatement renewStmt = heartbeatConnection.prepareStatement(renewSql)) {
+            renewStmt.setString(1, owner);
+            renewStmt.setTimestamp(2, lockedAt);
+            if (renewStmt.executeUpdate() == 0) {
+                leaseLost = true;
+                log.error("Migration lock lease was lost; another process has taken over the lock");
+            } else {
+                lastRenewedNanos = start;
+                log.debug("Migration lock lease renewed");
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to renew the migration lock lease: {}", e.getMessage());
+        }
+    }
+
+    private void stopHeartbeat() {
+        if (heartbeat == null) {
+            return;
+        }
+        heartbeat.shutdownNow();
+        try {
+            heartbeat.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        heartbeat = null;
+        try {
+            heartbeatConnection.close();
+        } catch (SQLException e) {
+            log.debug("Failed to return the heartbeat connection: {}", e.getMessage());
+        }
+        heartbeatConnection = null;
+    }
+
+    private static String processIdentity() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown-host";
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
+}
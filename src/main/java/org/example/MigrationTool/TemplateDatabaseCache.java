@@ -0,0 +1,248 @@
+package org.example.MigrationTool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.DBConnectionManager.ConnectionManager;
+import org.example.MigrationFile.ChecksumCache;
+import org.example.MigrationFile.MigrationFileReader;
+import org.example.MigrationReport.ValidationResult;
+import org.example.Utils.PropertiesUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+/**
+ * Creates disposable PostgreSQL databases from a migrated template database ({@code template.database}).
+ * The template is migrated once; its version and the fingerprint of the migration set it was migrated with are kept
+ * in {@code cache.path}. While the migration set is unchanged a clone is a plain {@code CREATE DATABASE ... TEMPLATE},
+ * a file-level copy without running any migration. New migrations are applied to the template before cloning; if an
+ * applied script was edited or removed, the template is dropped and migrated again.
+ * <p>
+ * Administrative statements run on the database of {@code db.url}; an advisory lock on it serialises refreshing and
+ * cloning the template across processes, since PostgreSQL refuses to copy a database other sessions are connected to.
+ */
+@Slf4j
+public class TemplateDatabaseCache {
+    private static final Pattern DATABASE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]{0,62}");
+    private static final String STATE_HEADER = "# template-state v1";
+
+    private final PropertiesUtils config;
+    private final String template;
+
+    /**
+     * The migration set fingerprint and the version the template was last migrated with.
+     */
+    public record TemplateState(String fingerprint, String version) {
+    }
+
+    public TemplateDatabaseCache(PropertiesUtils config) {
+        this.config = config;
+        this.template = databaseName(config.getTemplateDatabase());
+    }
+
+    /**
+     * Creates a new database as a copy of the template, bringing the template up to date first.
+     *
+     * @param name the name of the new database.
+     * @return the JDBC URL of the new database.
+     * @throws SQLException if the template cannot be migrated or the database cannot be created.
+     * @throws IOException if a migration script or the template state cannot be read.
+     * @throws IllegalArgumentException if the name is not a plain identifier.
+     */
+    public String cloneDatabase(String name) throws SQLException, IOException {
+        String clone = databaseName(name);
+        long start = System.nanoTime();
+        try (Connection admin = new ConnectionManager(config).connect()) {
+            long lockKey = ("template:" + template).hashCode();
+            try (PreparedStatement lock = admin.prepareStatement("SELECT pg_advisory_lock(?)")) {
+                lock.setLong(1, lockKey);
+                lock.execute();
+            }
+            try {
+                refreshTemplate(admin);
+                execute(admin, "CREATE DATABASE " + quote(clone) + " TEMPLATE " + quote(template));
+            } finally {
+                try (PreparedStatement unlock = admin.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    unlock.setLong(1, lockKey);
+                    unlock.execute();
+                }
+            }
+        }
+        log.info("Created database {} from template {} in {} ms", clone, template, (System.nanoTime() - start) / 1_000_000);
+        return withDatabase(config.getUrl(), clone);
+    }
+
+    /**
+     * Drops a database created by {@link #cloneDatabase(String)}.
+     *
+     * @param name the name of the database.
+     * @throws SQLException if the database cannot be dropped, e.g. while sessions are connected to it.
+     * @throws IllegalArgumentException if the name is not a plain identifier or names the template.
+     */
+    public void dropDatabase(String name) throws SQLException {
+        String clone = databaseName(name);
+        if (clone.equals(template)) {
+            throw new IllegalArgumentException("Refusing to drop the template database " + template);
+        }
+        try (Connection admin = new ConnectionManager(config).connect()) {
+            execute(admin, "DROP DATABASE IF EXISTS " + quote(clone));
+        }
+        log.info("Dropped database {}", clone);
+    }
+
+    private void refreshTemplate(Connection admin) throws SQLException, IOException {
+        ChecksumCache cache = ChecksumCache.load(config.getCachePath());
+        String fingerprint = new MigrationFileReader(config).getMigrationSetFingerprint(cache);
+        try {
+            cache.save();
+        } catch (IOException e) {
+            log.warn("Failed to save the checksum cache: {}", e.getMessage());
+        }
+
+        boolean exists = databaseExists(admin);
+        TemplateState state = readState(stateFile());
+        if (exists && state != null && state.fingerprint().equals(fingerprint)) {
+            log.info("Template {} is up to date at version {}", template, state.version());
+            return;
+        }
+        if (!exists) {
+            execute(admin, "CREATE DATABASE " + quote(template));
+        }
+
+        String version = migrateTemplate();
+        if (version == null) {
+            log.info("Applied migrations of template {} changed, rebuilding it", template);
+            execute(admin, "DROP DATABASE " + quote(template));
+            execute(admin, "CREATE DATABASE " + quote(template));
+            version = migrateTemplate();
+        }
+        writeState(stateFile(), new TemplateState(fingerprint, version));
+    }
+
+    // Applies the pending migrations to the template; returns null without migrating if applied scripts changed
+    private String migrateTemplate() throws SQLException, IOException {
+        PropertiesUtils templateConfig = config.withOverride("db.url", withDatabase(config.getUrl(), template));
+        // closing the manager closes the lock heartbeat connections, so no session is left on the template
+        try (ConnectionManager connectionManager = new ConnectionManager(templateConfig);
+             Connection connection = connectionManager.connect()) {
+            // clones are used with the same db.schema, so the template is migrated into it
+            if (templateConfig.getSchema() != null) {
+                execute(connection, "CREATE SCHEMA IF NOT EXISTS " + quote(templateConfig.getSchema()));
+            }
+            MigrationExecutor migrationExecutor = new MigrationExecutor(connection, templateConfig);
+            migrationExecutor.initializeSchemaTable();
+            migrationExecutor.initializeLockTable();
+            MigrationTool migrationTool = new MigrationTool(migrationExecutor, connection, templateConfig, connectionManager);
+            ValidationResult validation = migrationTool.validate();
+            if (!validation.isValid()) {
+                return null;
+            }
+            migrationTool.migrate();
+            String version = migrationExecutor.getCurrentVersion();
+            return version != null ? version : "";
+        }
+    }
+
+    private boolean databaseExists(Connection admin) throws SQLException {
+        try (PreparedStatement statement = admin.prepareStatement("SELECT 1 FROM pg_database WHERE datname = ?")) {
+            statement.setString(1, template);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    // CREATE/DROP DATABASE cannot run inside a transaction; the admin connection is in auto-commit mode
+    private static void execute(Connection admin, String sql) throws SQLException {
+        log.debug("Executing {}", sql);
+        try (Statement statement = admin.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private Path stateFile() {
+        return config.getCachePath().resolve("template-" + template + ".state");
+    }
+
+    /**
+     * Reads the state of a template written by {@link #writeState(Path, TemplateState)}.
+     *
+     * @param file the state file.
+     * @return the state, or null if the file is missing, unreadable or not a template state.
+     */
+    public static TemplateState readState(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (BufferedReader lines = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = STATE_HEADER.equals(lines.readLine()) ? lines.readLine() : null;
+            String[] fields = line != null ? line.split("\t", -1) : null;
+            return fields != null && fields.length == 2 ? new TemplateState(fields[0], fields[1]) : null;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable template state {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the state of a template atomically, creating the parent directories.
+     *
+     * @param file  the state file.
+     * @param state the fingerprint and version the template was migrated with.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeState(Path file, TemplateState state) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(STATE_HEADER);
+            writer.newLine();
+            writer.write(state.fingerprint() + "\t" + state.version());
+            writer.newLine();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String databaseName(String name) {
+        if (name == null || !DATABASE_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Not a valid database name: " + name);
+        }
+        return name;
+    }
+
+    private static String quote(String name) {
+        return "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Replaces the database of a PostgreSQL JDBC URL, keeping its host, port and parameters, e.g.
+     * {@code jdbc:postgresql://host:5432/postgres?ssl=true} becomes {@code jdbc:postgresql://host:5432/<database>?ssl=true}.
+     *
+     * @param url      a PostgreSQL JDBC URL, with or without a database.
+     * @param database the database to connect to.
+     * @return the JDBC URL of the database.
+     * @throws IllegalStateException if the URL is not a PostgreSQL URL.
+     */
+    public static String withDatabase(String url, String database) {
+        if (!url.startsWith("jdbc:postgresql://")) {
+            throw new IllegalStateException("Template databases require a PostgreSQL URL: " + url);
+        }
+        int hostStart = "jdbc:postgresql://".length();
+        int query = url.indexOf('?', hostStart);
+        String base = query >= 0 ? url.substring(0, query) : url;
+        String parameters = query >= 0 ? url.substring(query) : "";
+        int slash = base.indexOf('/', hostStart);
+        return (slash >= 0 ? base.substring(0, slash) : base) + "/" + database + parameters;
+    }
+}
@@ -4,11 +4,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 /**
  * Utility class for loading and accessing properties from the `application.properties` file.
  */
 public class PropertiesUtils {
+    private static final long DEFAULT_LOCK_KEY = 0x6D6967726174696FL; // "migratio"
     private final Properties properties = new Properties();
     /**
      * Loads the properties from the `application.properties` file.
@@ -26,6 +30,21 @@ public class PropertiesUtils {
             throw new RuntimeException("Failed to load database configuration", e);
         }
     }
+    private PropertiesUtils(Properties properties) {
+        this.properties.putAll(properties);
+    }
+    /**
+     * Creates a copy of this configuration with a single property replaced.
+     *
+     * @param key   the property to replace
+     * @param value the new value of the property
+     * @return a new configuration containing the override
+     */
+    public PropertiesUtils withOverride(String key, String value) {
+        PropertiesUtils copy = new PropertiesUtils(properties);
+        copy.properties.setProperty(key, value);
+        return copy;
+    }
     /**
      * Retrieves the database URL from the properties file.
      *
@@ -78,6 +97,42 @@ public class PropertiesUtils {
         }
         return Paths.get(rollbacksPath);
     }
+    /**
+     * Retrieves the location of migration files: a filesystem directory, or {@code classpath:<dir>}
+     * for scripts bundled in the jar.
+     *
+     * @return the location of migration files
+     * @throws IllegalStateException if the migrations path is not configured
+     */
+    public String getMigrationsLocation() {
+        String migrationsPath = properties.getProperty("migrations.path");
+        if (migrationsPath == null || migrationsPath.isEmpty()) {
+            throw new IllegalStateException("migrations.path is not configured in application.properties");
+        }
+        return migrationsPath;
+    }
+    /**
+     * Retrieves the location of rollback files: a filesystem directory, or {@code classpath:<dir>}
+     * for scripts bundled in the jar.
+     *
+     * @return the location of rollback files
+     * @throws IllegalStateException if the rollbacks path is not configured
+     */
+    public String getRollbacksLocation() {
+        String rollbacksPath = properties.getProperty("rollbacks.path");
+        if (rollbacksPath == null || rollbacksPath.isEmpty()) {
+            throw new IllegalStateException("rollbacks.path is not configured in application.properties");
+        }
+        return rollbacksPath;
+    }
+    /**
+     * Retrieves the directory for local caches such as migration manifests.
+     *
+     * @return the cache directory, {@code .migration-cache} by default
+     */
+    public Path getCachePath() {
+        return Paths.get(properties.getProperty("cache.path", ".migration-cache"));
+    }
     /**
      * Retrieves the path for report files from the properties file.
      *
@@ -91,4 +146,343 @@ public class PropertiesUtils {
         }
         return reportsPath;
     }
-}
\ No newline at end of file
+    /**
+     * Retrieves how reports are written: {@code files} (default, one JSON file per report) or {@code ndjson}
+     * (one run-level file appended by a background writer).
+     *
+     * @return the configured reports mode
+     * @throws IllegalStateException if an unknown reports mode is configured
+     */
+    public String getReportsMode() {
+        String mode = properties.getProperty("reports.mode", "files").trim().toLowerCase();
+        if (!mode.equals("files") && !mode.equals("ndjson")) {
+            throw new IllegalStateException("Unknown reports.mode: " + mode);
+        }
+        return mode;
+    }
+    /**
+     * Retrieves the number of reports the background writer queues before writers block.
+     *
+     * @return the queue capacity, 1024 by default
+     * @throws IllegalStateException if the configured capacity is not a positive number
+     */
+    public int getReportsQueueCapacity() {
+        int capacity = getInt("reports.queue.capacity", 1024);
+        if (capacity < 1) {
+            throw new IllegalStateException("reports.queue.capacity must be a positive number");
+        }
+        return capacity;
+    }
+    /**
+     * Retrieves the target name reports are tagged with in NDJSON mode. Set per target by fan-out runs.
+     *
+     * @return the target name, or null if none is set
+     */
+    public String getReportsTarget() {
+        String target = properties.getProperty("reports.target");
+        return target == null || target.isBlank() ? null : target.trim();
+    }
+    /**
+     * Checks whether the metrics of a run are written to {@code metrics.prom} in the reports path.
+     *
+     * @return true unless {@code metrics.enabled} is set to false
+     */
+    public boolean isMetricsEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("metrics.enabled", "true").trim());
+    }
+    /**
+     * Retrieves the statement execution mode for migration scripts: {@code statement} (default) or {@code batch}.
+     *
+     * @return the configured execution mode
+     * @throws IllegalStateException if an unknown execution mode is configured
+     */
+    public String getExecutionMode() {
+        String mode = properties.getProperty("migration.execution.mode", "statement").trim().toLowerCase();
+        if (!mode.equals("statement") && !mode.equals("batch")) {
+            throw new IllegalStateException("Unknown migration.execution.mode: " + mode);
+        }
+        return mode;
+    }
+    /**
+     * Retrieves the command that dumps the schema for the baseline command. Connection arguments, the schema
+     * and the exclusion of the tool's own tables are appended to it.
+     *
+     * @return the dump command, {@code pg_dump --schema-only --no-owner --no-privileges} by default
+     */
+    public String getBaselineDumpCommand() {
+        return properties.getProperty("baseline.dump.command", "pg_dump --schema-only --no-owner --no-privileges");
+    }
+    /**
+     * Retrieves the name of the template database that disposable databases are cloned from.
+     *
+     * @return the template database name, {@code migration_template} by default
+     */
+    public String getTemplateDatabase() {
+        return properties.getProperty("template.database", "migration_template").trim();
+    }
+    /**
+     * Retrieves the address the {@code serve} daemon listens on. Loopback by default, as the API is not authenticated.
+     *
+     * @return the listen address, {@code 127.0.0.1} by default
+     */
+    public String getServeHost() {
+        return properties.getProperty("serve.host", "127.0.0.1").trim();
+    }
+    /**
+     * Retrieves the port the {@code serve} daemon listens on; zero picks a free port.
+     *
+     * @return the listen port, 8765 by default
+     * @throws IllegalStateException if the configured port is out of range
+     */
+    public int getServePort() {
+        int port = getInt("serve.port", 8765);
+        if (port < 0 || port > 65535) {
+            throw new IllegalStateException("serve.port must be between 0 and 65535");
+        }
+        return port;
+    }
+    /**
+     * Retrieves how long the {@code serve} daemon answers from its cached status while the migrations directory is
+     * unchanged. Changes made by other processes, or scripts edited in place, are seen once the entry expires.
+     *
+     * @return the cache lifetime, 5 seconds by default
+     */
+    public Duration getServeCacheTtl() {
+        return Duration.ofMillis(Math.max(0L, getLong("serve.cache.ttl.ms", 5000L)));
+    }
+    /**
+     * Retrieves the transaction granularity of a sequential migration run:
+     * {@code single} (default, all migrations in one transaction), {@code per-migration} (a commit after every
+     * migration) or {@code savepoint} (one transaction, a failed migration is rolled back to its savepoint and the
+     * migrations before it are committed).
+     *
+     * @return the configured transaction mode
+     * @throws IllegalStateException if an unknown transaction mode is configured
+     */
+    public String getTransactionMode() {
+        String mode = properties.getProperty("migration.transaction.mode", "single").trim().toLowerCase();
+        if (!mode.equals("single") && !mode.equals("per-migration") && !mode.equals("savepoint")) {
+            throw new IllegalStateException("Unknown migration.transaction.mode: " + mode);
+        }
+        return mode;
+    }
+    /**
+     * Retrieves the maximum number of statements sent in one JDBC batch when the batch execution mode is used.
+     *
+     * @return the batch size, 100 by default
+     * @throws IllegalStateException if the configured batch size is not a positive number
+     */
+    public int getBatchSize() {
+        int batchSize = getInt("migration.batch.size", 100);
+        if (batchSize < 1) {
+            throw new IllegalStateException("migration.batch.size must be a positive number");
+        }
+        return batchSize;
+    }
+    /**
+     * Retrieves the default number of keys per chunk of a backfill migration.
+     *
+     * @return the chunk size, 10000 by default
+     * @throws IllegalStateException if the configured size is not a positive number
+     */
+    public long getBackfillChunkSize() {
+        long chunkSize = getLong("migration.backfill.chunk.size", 10000L);
+        if (chunkSize < 1) {
+            throw new IllegalStateException("migration.backfill.chunk.size must be a positive number");
+        }
+        return chunkSize;
+    }
+    /**
+     * Retrieves the default pause between two chunks of a backfill migration.
+     *
+     * @return the pause in milliseconds, 0 by default
+     */
+    public long getBackfillSleep() {
+        return Math.max(0L, getLong("migration.backfill.sleep.ms", 0L));
+    }
+    /**
+     * Checks whether batched inserts are rewritten into multi-row inserts: by the PostgreSQL driver for prepared
+     * statements, and by the executor for consecutive INSERT statements of a script batch.
+     *
+     * @return true unless {@code db.rewrite.batched.inserts} is set to false
+     */
+    public boolean isRewriteBatchedInserts() {
+        return Boolean.parseBoolean(properties.getProperty("db.rewrite.batched.inserts", "true").trim());
+    }
+
+    /**
+     * Retrieves the migration lock backend: {@code auto} (default), {@code advisory} or {@code table}.
+     *
+     * @return the configured lock type
+     * @throws IllegalStateException if an unknown lock type is configured
+     */
+    public String getLockType() {
+        String type = properties.getProperty("migration.lock.type", "auto").trim().toLowerCase();
+        if (!type.equals("auto") && !type.equals("advisory") && !type.equals("table")) {
+            throw new IllegalStateException("Unknown migration.lock.type: " + type);
+        }
+        return type;
+    }
+    /**
+     * Retrieves the key of the PostgreSQL advisory lock guarding migrations.
+     *
+     * @return the configured advisory lock key
+     */
+    public long getLockKey() {
+        return getLong("migration.lock.key", DEFAULT_LOCK_KEY);
+    }
+
+    /**
+     * Retrieves how long lock acquisition waits for a lock held by another process.
+     *
+     * @return the wait timeout, zero (fail fast) by default
+     */
+    public Duration getLockWaitTimeout() {
+        return Duration.ofMillis(getLong("migration.lock.wait.timeout.ms", 0L));
+    }
+
+    /**
+     * Retrieves the lease length of the table-based migration lock. The holder renews the lease while it runs;
+     * a lock whose lease has expired is taken over by the next process. Zero disables expiry.
+     *
+     * @return the lease length, 60 seconds by default
+     */
+    public Duration getLockLease() {
+        return Duration.ofMillis(getLong("migration.lock.lease.ms", 60_000L));
+    }
+
+    /**
+     * Retrieves the schema migrations run in; connections set it as their current schema (search_path).
+     *
+     * @return the configured schema, or null to use the connection default
+     */
+    public String getSchema() {
+        String schema = properties.getProperty("db.schema");
+        return schema == null || schema.isBlank() ? null : schema.trim();
+    }
+    /**
+     * Retrieves the JDBC URLs of additional databases to migrate in fan-out mode.
+     *
+     * @return the configured target URLs, empty by default
+     */
+    public List<String> getTargetUrls() {
+        return getList("migration.targets");
+    }
+    /**
+     * Retrieves the schemas to migrate in fan-out mode, e.g. one schema per tenant.
+     *
+     * @return the configured target schemas, empty by default
+     */
+    public List<String> getTargetSchemas() {
+        return getList("migration.schemas");
+    }
+    /**
+     * Retrieves the number of migrations applied concurrently within one database.
+     * With a value above 1 the migrations run as a dependency graph, each in its own transaction.
+     *
+     * @return the migration parallelism, 1 (sequential, single transaction) by default
+     * @throws IllegalStateException if the configured parallelism is not a positive number
+     */
+    public int getMigrationParallelism() {
+        int parallelism = getInt("migration.parallelism", 1);
+        if (parallelism < 1) {
+            throw new IllegalStateException("migration.parallelism must be a positive number");
+        }
+        return parallelism;
+    }
+    /**
+     * Checks whether a sequential run applies unapplied versions below the current version, e.g. left behind by a
+     * failed dependency graph run, before the pending ones. Otherwise such versions fail the run.
+     *
+     * @return true if {@code migration.out.of.order} is set to true, false by default
+     */
+    public boolean isOutOfOrder() {
+        return Boolean.parseBoolean(properties.getProperty("migration.out.of.order", "false").trim());
+    }
+    /**
+     * Retrieves the number of targets migrated concurrently in fan-out mode.
+     *
+     * @return the fan-out parallelism, 8 by default
+     * @throws IllegalStateException if the configured parallelism is not a positive number
+     */
+    public int getFanOutParallelism() {
+        int parallelism = getInt("migration.fanout.parallelism", 8);
+        if (parallelism < 1) {
+            throw new IllegalStateException("migration.fanout.parallelism must be a positive number");
+        }
+        return parallelism;
+    }
+
+    /**
+     * Retrieves the maximum number of connections of the connection pool.
+     *
+     * @return the pool size, 10 by default
+     * @throws IllegalStateException if the configured size is not a positive number
+     */
+    public int getPoolMaxSize() {
+        int maxSize = getInt("db.pool.max.size", 10);
+        if (maxSize < 1) {
+            throw new IllegalStateException("db.pool.max.size must be a positive number");
+        }
+        return maxSize;
+    }
+    /**
+     * Retrieves the number of connections the pool opens up front and keeps when idle.
+     *
+     * @return the minimum number of idle connections, 0 by default
+     */
+    public int getPoolMinIdle() {
+        return Math.max(0, getInt("db.pool.min.idle", 0));
+    }
+    /**
+     * Retrieves how long a pooled connection may stay idle before it is closed.
+     *
+     * @return the idle timeout, 10 minutes by default
+     */
+    public Duration getPoolIdleTimeout() {
+        return Duration.ofMillis(getLong("db.pool.idle.timeout.ms", 600_000L));
+    }
+    /**
+     * Retrieves how long borrowing waits for a connection when the pool is exhausted.
+     *
+     * @return the borrow timeout, 30 seconds by default
+     */
+    public Duration getPoolBorrowTimeout() {
+        return Duration.ofMillis(getLong("db.pool.borrow.timeout.ms", 30_000L));
+    }
+
+    private int getInt(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException(key + " must be a number in application.properties", e);
+        }
+    }
+
+    private long getLong(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException(key + " must be a number in application.properties", e);
+        }
+    }
+
+    private List<String> getList(String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,103 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.MigrationFile.MigrationFile;
+import org.example.MigrationTool.MigrationExecutor;
+import org.example.Utils.PropertiesUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackfillRunnerUnitTests {
+
+    private static final String BACKFILL = """
+            -- @type: backfill
+            -- @backfill.table: items
+            -- @backfill.key: id
+            -- @backfill.chunk.size: 10
+            UPDATE items SET doubled = id * 2 WHERE id >= :start AND id < :end;
+            """;
+
+    @TempDir
+    Path reports;
+    private Connection connection;
+    private MigrationExecutor executor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:backfill_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE items (id INT PRIMARY KEY, doubled INT)");
+            statement.execute("INSERT INTO items SELECT X, NULL FROM SYSTEM_RANGE(1, 25)");
+        }
+        executor = new MigrationExecutor(connection, new PropertiesUtils().withOverride("reports.path", reports.toString()));
+        executor.initializeSchemaTable();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private static MigrationFile backfill() {
+        return MigrationFile.builder()
+                .version("7")
+                .description("backfill_doubled")
+                .location("V7__backfill_doubled.sql")
+                .sqlSource(() -> new StringReader(BACKFILL))
+                .build();
+    }
+
+    private long count(String sql) throws Exception {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    @Test
+    void testBackfillsInChunksAndRecordsVersion() throws Exception {
+        executor.applyMigration(backfill());
+
+        assertEquals(25, count("SELECT COUNT(*) FROM items WHERE doubled = id * 2"));
+        assertEquals(1, count("SELECT COUNT(*) FROM schema_version WHERE version = '7'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM backfill_checkpoint"));
+
+        JsonNode report = new ObjectMapper().readTree(reports.resolve("migration_7.json").toFile());
+        assertEquals("SUCCESS", report.get("status").asText());
+        assertEquals(25, report.get("rowsProcessed").asLong());
+        assertEquals(3, report.get("chunksProcessed").asLong());
+        assertEquals(100.0, report.get("progressPercent").asDouble());
+    }
+
+    @Test
+    void testResumesFromCheckpoint() throws Exception {
+        // a previous run committed the first two chunks and was killed
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE backfill_checkpoint (version VARCHAR(50) PRIMARY KEY, next_key BIGINT NOT NULL,
+                    rows_processed BIGINT NOT NULL, chunks_processed BIGINT NOT NULL, updated_at TIMESTAMP NOT NULL)
+                    """);
+            statement.execute("INSERT INTO backfill_checkpoint VALUES ('7', 21, 20, 2, CURRENT_TIMESTAMP)");
+        }
+
+        executor.applyMigration(backfill());
+
+        assertEquals(5, count("SELECT COUNT(*) FROM items WHERE doubled = id * 2"));
+        assertEquals(0, count("SELECT COUNT(*) FROM items WHERE id < 21 AND doubled IS NOT NULL"));
+        JsonNode report = new ObjectMapper().readTree(reports.resolve("migration_7.json").toFile());
+        assertEquals(25, report.get("rowsProcessed").asLong());
+        assertEquals(3, report.get("chunksProcessed").asLong());
+    }
+}
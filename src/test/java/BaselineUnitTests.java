@@ -0,0 +1,103 @@
+package org.example;
+
+import org.example.MigrationFile.MigrationFile;
+import org.example.MigrationTool.MigrationExecutor;
+import org.example.MigrationTool.MigrationTool;
+import org.example.MigrationTool.SchemaSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaselineUnitTests {
+
+    @TempDir
+    Path dir;
+    private MigrationTestDatabase database;
+    private MigrationExecutor executor;
+    private MigrationTool migrationTool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new MigrationTestDatabase(dir, "baseline");
+        database.migration("V1__create.sql", "CREATE TABLE items (id INT PRIMARY KEY);\n");
+        database.migration("V2__replayed.sql", "CREATE TABLE replayed (id INT);\n");
+        database.migration("V3__add_price.sql", "ALTER TABLE items ADD COLUMN price INT;\n");
+        database.migration("B2__baseline.sql", "CREATE TABLE items (id INT PRIMARY KEY);\n");
+        executor = database.executor;
+        migrationTool = database.migrationTool();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    private boolean tableExists(String table) throws Exception {
+        try (ResultSet tables = database.connection.getMetaData().getTables(null, null, table.toUpperCase(), null)) {
+            return tables.next();
+        }
+    }
+
+    @Test
+    void testEmptyDatabaseStartsFromBaseline() throws Exception {
+        migrationTool.migrate();
+
+        assertFalse(tableExists("replayed"));
+        assertTrue(tableExists("items"));
+        database.execute("SELECT price FROM items");
+        assertEquals(List.of("1", "2", "3"), executor.getAppliedMigrations());
+        assertTrue(migrationTool.validate().isValid());
+    }
+
+    @Test
+    void testExistingDatabaseIgnoresBaseline() throws Exception {
+        database.execute("CREATE TABLE items (id INT PRIMARY KEY)");
+        database.execute("INSERT INTO schema_version (version, description) VALUES ('1', 'create')");
+
+        migrationTool.migrate();
+
+        assertTrue(tableExists("replayed"));
+        assertEquals(List.of("1", "2", "3"), executor.getAppliedMigrations());
+    }
+
+    private static MigrationFile script(String version, String location, String sql) {
+        return MigrationFile.builder()
+                .version(version)
+                .location(location)
+                .sqlSource(() -> new StringReader(sql))
+                .build();
+    }
+
+    @Test
+    void testSeededTablesOfCoveredMigrations() throws Exception {
+        List<MigrationFile> covered = List.of(
+                script("1", "V1__create.sql", """
+                        CREATE TABLE countries (code CHAR(2));
+                        INSERT INTO countries VALUES ('FR');
+                        UPDATE items SET price = 0;
+                        COPY items TO stdout;
+                        """),
+                script("2", "V2__seed.sql", """
+                        insert into ref."Currencies" (code) values ('EUR');
+                        MERGE INTO settings USING (SELECT 1) s ON TRUE WHEN NOT MATCHED THEN INSERT VALUES (1);
+                        INSERT INTO schema_version (version) VALUES ('0');
+                        """),
+                script("3", "V3__fill.sql", """
+                        -- @type: backfill
+                        INSERT INTO items SELECT * FROM old_items;
+                        """),
+                MigrationFile.builder().version("4").description("regions").location("V4__regions.csv").build());
+
+        assertEquals(Set.of("countries", "ref.\"Currencies\"", "settings", "regions"),
+                SchemaSnapshot.seededTables(covered));
+    }
+}
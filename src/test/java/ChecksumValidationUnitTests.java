@@ -0,0 +1,102 @@
+package org.example;
+
+import org.example.MigrationFile.ChecksumCache;
+import org.example.MigrationFile.MigrationFile;
+import org.example.MigrationFile.MigrationFileReader;
+import org.example.MigrationFile.MigrationManifest;
+import org.example.MigrationReport.ValidationResult;
+import org.example.MigrationTool.MigrationExecutor;
+import org.example.MigrationTool.MigrationTool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChecksumValidationUnitTests {
+
+    @TempDir
+    Path dir;
+    private MigrationTestDatabase database;
+    private MigrationExecutor executor;
+    private MigrationTool migrationTool;
+    private MigrationFileReader reader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new MigrationTestDatabase(dir, "validate");
+        database.migration("V1__create.sql", "CREATE TABLE items (id INT PRIMARY KEY);\n");
+        database.migration("V2__seed.sql", "INSERT INTO items VALUES (1);\n");
+        executor = database.executor;
+        migrationTool = database.migrationTool();
+        reader = new MigrationFileReader(database.config);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    void testDetectsEditedMigrationAndHashesOnlyChangedFiles() throws Exception {
+        for (MigrationFile migrationFile : reader.getMigrationFiles()) {
+            executor.applyMigration(migrationFile);
+        }
+        assertEquals(reader.getMigrationManifest().getEntries().get(1).getChecksum(),
+                executor.getAppliedChecksums().get("2"));
+
+        ValidationResult first = migrationTool.validate();
+        assertTrue(first.isValid());
+        assertEquals(2, first.getHashedFiles());
+        assertEquals(0, migrationTool.validate().getHashedFiles());
+
+        database.migration("V2__seed.sql", "INSERT INTO items VALUES (1), (2);\n");
+        ValidationResult edited = migrationTool.validate();
+        assertFalse(edited.isValid());
+        assertEquals(List.of("2"), edited.getMismatched());
+        assertEquals(1, edited.getHashedFiles());
+    }
+
+    @Test
+    void testFingerprintChangesOnlyWithTheMigrationSet() throws Exception {
+        ChecksumCache cache = ChecksumCache.load(dir.resolve("cache"));
+        String fingerprint = reader.getMigrationSetFingerprint(cache);
+        assertEquals(fingerprint, reader.getMigrationSetFingerprint(cache));
+
+        database.migration("V2__seed.sql", "INSERT INTO items VALUES (2), (3);\n");
+        assertNotEquals(fingerprint, reader.getMigrationSetFingerprint(cache));
+    }
+
+    @Test
+    void testReportsMissingAndUnverifiedVersions() throws Exception {
+        database.execute("INSERT INTO schema_version (version, description) VALUES ('1', 'create'), ('9', 'gone')");
+
+        ValidationResult result = migrationTool.validate();
+        assertEquals(List.of("1"), result.getUnverified());
+        assertEquals(List.of("9"), result.getMissing());
+        assertFalse(result.isValid());
+    }
+
+    @Test
+    void testRescanReusesChecksumsOfUnchangedScripts() throws Exception {
+        MigrationManifest first = MigrationManifest.scan(database.migrations, null);
+        Path seed = database.migrations.resolve("V2__seed.sql");
+        FileTime modified = Files.getLastModifiedTime(seed);
+        // same size and modification time: the previous checksum is kept without reading the script
+        Files.writeString(seed, "INSERT INTO items VALUES (2);\n");
+        Files.setLastModifiedTime(seed, modified);
+        database.migration("V3__more.sql", "INSERT INTO items VALUES (3);\n");
+
+        MigrationManifest rescanned = MigrationManifest.scan(database.migrations, first);
+        assertEquals(3, rescanned.getEntries().size());
+        assertEquals(first.getEntries().get(1).getChecksum(), rescanned.getEntries().get(1).getChecksum());
+        assertNotEquals(first.getEntries().get(1).getChecksum(),
+                MigrationManifest.scan(database.migrations, null).getEntries().get(1).getChecksum());
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import org.example.DBConnectionManager.ConnectionPool;
+import org.example.DBConnectionManager.PoolMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolUnitTests {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String url = "jdbc:h2:mem:pool_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        pool = new ConnectionPool(() -> DriverManager.getConnection(url), 2, 1,
+                Duration.ofMinutes(1), Duration.ofMillis(200));
+        pool.warmUp();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void testReusesReturnedConnections() throws Exception {
+        assertEquals(1, pool.getMetrics().getIdle());
+
+        try (Connection connection = pool.borrow()) {
+            connection.setAutoCommit(false);
+            assertEquals(1, pool.getMetrics().getActive());
+        }
+        try (Connection connection = pool.borrow()) {
+            assertTrue(connection.getAutoCommit());
+        }
+
+        PoolMetrics metrics = pool.getMetrics();
+        assertEquals(1, metrics.getCreated());
+        assertEquals(2, metrics.getBorrowed());
+        assertEquals(0, metrics.getActive());
+    }
+
+    @Test
+    void testBorrowTimesOutWhenExhausted() throws Exception {
+        Connection first = pool.borrow();
+        Connection second = pool.borrow();
+
+        assertThrows(SQLException.class, () -> pool.borrow());
+
+        first.close();
+        assertTrue(first.isClosed());
+        assertThrows(SQLException.class, first::createStatement);
+        pool.borrow().close();
+        second.close();
+        assertEquals(2, pool.getMetrics().getIdle());
+    }
+
+    @Test
+    void testReplacesInvalidConnections() throws Exception {
+        Connection connection = pool.borrow();
+        connection.unwrap(Connection.class).close();
+        connection.close();
+
+        try (Connection replacement = pool.borrow()) {
+            assertFalse(replacement.isClosed());
+        }
+        assertEquals(2, pool.getMetrics().getCreated());
+    }
+}
@@ -0,0 +1,34 @@
+package org.example;
+
+import org.example.Metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryUnitTests {
+
+    @Test
+    void testRendersPrometheusText() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.timer("migration_duration_seconds", "Duration", "status", "SUCCESS").record(1_500_000_000L);
+        registry.timer("migration_duration_seconds", "Duration", "status", "SUCCESS").record(500_000_000L);
+        registry.timer("migration_duration_seconds", "Duration", "status", "FAILED").record(250_000_000L);
+        registry.counter("migration_rows_total", "Rows").increment(42);
+
+        assertEquals("""
+                # HELP migration_duration_seconds Duration
+                # TYPE migration_duration_seconds summary
+                migration_duration_seconds_count{status="FAILED"} 1
+                migration_duration_seconds_sum{status="FAILED"} 0.25
+                migration_duration_seconds_count{status="SUCCESS"} 2
+                migration_duration_seconds_sum{status="SUCCESS"} 2.0
+                # HELP migration_duration_seconds_max Duration (maximum)
+                # TYPE migration_duration_seconds_max gauge
+                migration_duration_seconds_max{status="FAILED"} 0.25
+                migration_duration_seconds_max{status="SUCCESS"} 1.5
+                # HELP migration_rows_total Rows
+                # TYPE migration_rows_total counter
+                migration_rows_total 42
+                """, registry.toPrometheusText());
+    }
+}
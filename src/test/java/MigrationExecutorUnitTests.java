@@ -1,16 +1,28 @@
 package org.example;
 
+import org.example.MigrationFile.MigrationFile;
 import org.example.MigrationTool.MigrationExecutor;
+import org.example.MigrationTool.MigrationStatementException;
+import org.example.Utils.PropertiesUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.Statement;
 import java.sql.Timestamp;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -37,7 +49,23 @@ class MigrationExecutorUnitTests {
     @Test
     void testInitializeSchemaTable() throws Exception {
         migrationExecutor.initializeSchemaTable();
-        verify(statement).execute(anyString());
+        verify(statement).execute(contains("CREATE TABLE IF NOT EXISTS schema_version"));
+        verify(statement).execute("ALTER TABLE schema_version ADD COLUMN IF NOT EXISTS checksum VARCHAR(16)");
+    }
+
+    @Test
+    void testInitializeLockTableLeavesUpToDateTableUnaltered() throws Exception {
+        ResultSet columns = mock(ResultSet.class);
+        when(statement.executeQuery(contains("information_schema.columns"))).thenReturn(columns);
+        when(columns.next()).thenReturn(true, true, true, false);
+        when(columns.getString(1)).thenReturn("lease_expires_at", "taken_over_from", "taken_over_at");
+        when(columns.getString(2)).thenReturn("timestamp with time zone", "character varying",
+                "timestamp without time zone");
+
+        migrationExecutor.initializeLockTable();
+
+        verify(statement).execute(contains("CREATE TABLE IF NOT EXISTS migration_lock"));
+        verify(statement, never()).execute(startsWith("ALTER TABLE"));
     }
 
     @Test
@@ -58,4 +86,110 @@ class MigrationExecutorUnitTests {
 
         assertThrows(Exception.class, () -> migrationExecutor.applyMigration("1", "Faulty Migration", "INVALID SQL"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testApplyMigrationInBatches() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        PropertiesUtils config = new PropertiesUtils()
+                .withOverride("migration.execution.mode", "batch")
+                .withOverride("migration.batch.size", "2");
+        MigrationExecutor batchExecutor = new MigrationExecutor(connection, config);
+
+        batchExecutor.applyMigration("1", "Seed", "INSERT INTO t VALUES (1); INSERT INTO t VALUES (2); INSERT INTO t VALUES (3); SELECT 1;");
+
+        // the INSERTs of a batch are merged into one multi-row INSERT
+        verify(statement).addBatch("INSERT INTO t VALUES (1), (2)");
+        verify(statement).addBatch("INSERT INTO t VALUES (3)");
+        verify(statement, times(2)).executeBatch();
+        verify(statement).execute("SELECT 1");
+    }
+
+    @Test
+    void testOnlyPlainInsertsAreMerged() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        PropertiesUtils config = new PropertiesUtils().withOverride("migration.execution.mode", "batch");
+        MigrationExecutor batchExecutor = new MigrationExecutor(connection, config);
+
+        batchExecutor.applyMigration("1", "Seed", """
+                INSERT INTO t (a, b) VALUES (1, 'x), (y');
+                INSERT INTO t (a, b) VALUES (2, 'it''s');
+                INSERT INTO t (a, b) VALUES (3, 'z') ON CONFLICT DO NOTHING;
+                INSERT INTO u VALUES (1);
+                INSERT INTO u VALUES (2) RETURNING id;
+                INSERT INTO u VALUES (3);
+                """);
+
+        verify(statement).addBatch("INSERT INTO t (a, b) VALUES (1, 'x), (y'), (2, 'it''s')");
+        verify(statement).addBatch("INSERT INTO t (a, b) VALUES (3, 'z') ON CONFLICT DO NOTHING");
+        verify(statement).addBatch("INSERT INTO u VALUES (1)");
+        verify(statement).addBatch("INSERT INTO u VALUES (3)");
+        // statements returning rows are executed on their own
+        verify(statement).execute("INSERT INTO u VALUES (2) RETURNING id");
+        verify(statement, times(2)).executeBatch();
+    }
+
+    @Test
+    void testNonTransactionalMigrationIsNotBatched() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        PropertiesUtils config = new PropertiesUtils().withOverride("migration.execution.mode", "batch");
+        MigrationExecutor batchExecutor = new MigrationExecutor(connection, config);
+        String script = "-- @transaction: none\n"
+                + "CREATE INDEX CONCURRENTLY items_a ON items (a);\n"
+                + "CREATE INDEX CONCURRENTLY items_b ON items (b);\n";
+
+        batchExecutor.applyMigration(MigrationFile.builder()
+                .version("1")
+                .description("indexes")
+                .location("V1__indexes.sql")
+                .sqlSource(() -> new StringReader(script))
+                .build());
+
+        verify(statement, never()).addBatch(anyString());
+        verify(statement, never()).executeBatch();
+        verify(statement).execute("CREATE INDEX CONCURRENTLY items_a ON items (a)");
+        verify(statement).execute("CREATE INDEX CONCURRENTLY items_b ON items (b)");
+    }
+
+    @Test
+    void testBatchFailureReportsFailedStatement() throws Exception {
+        PropertiesUtils config = new PropertiesUtils()
+                .withOverride("migration.execution.mode", "batch")
+                .withOverride("db.rewrite.batched.inserts", "false");
+        MigrationExecutor batchExecutor = new MigrationExecutor(connection, config);
+        when(statement.executeBatch()).thenThrow(new BatchUpdateException("Batch entry 1 failed", new int[]{1}));
+
+        MigrationStatementException exception = assertThrows(MigrationStatementException.class,
+                () -> batchExecutor.applyMigration("1", "Seed", "INSERT INTO t VALUES (1);\nINSERT INTO t VALUES ('x');\n"));
+
+        assertEquals(2, exception.getLineNumber());
+    }
+
+    @Test
+    void testLoadsCsvDataMigrationWithCopy() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        StringBuilder copied = new StringBuilder();
+        when(copyManager.copyIn(anyString(), any(InputStream.class), anyInt())).thenAnswer(invocation -> {
+            copied.append(new String(invocation.<InputStream>getArgument(1).readAllBytes(), StandardCharsets.UTF_8));
+            return 2L;
+        });
+        byte[] csv = "code,\"Display Name\"\r\nDE,Germany\r\nFR,France\r\n".getBytes(StandardCharsets.UTF_8);
+
+        migrationExecutor.applyMigration(MigrationFile.builder()
+                .version("1")
+                .description("countries")
+                .location("V1__countries.csv")
+                .dataSource(() -> new ByteArrayInputStream(csv))
+                .build());
+
+        verify(copyManager).copyIn(eq("COPY countries (code, \"Display Name\") FROM STDIN WITH (FORMAT csv)"),
+                any(InputStream.class), anyInt());
+        assertEquals("DE,Germany\r\nFR,France\r\n", copied.toString());
+        verify(preparedStatement).setString(1, "1");
+        verify(preparedStatement).executeUpdate();
+    }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import org.example.MigrationReport.FanOutSummary;
+import org.example.MigrationTool.MigrationFanOut;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationFanOutUnitTests {
+
+    @TempDir
+    Path dir;
+    private MigrationTestDatabase database;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new MigrationTestDatabase(dir, "fanout");
+        database.migration("V1__create.sql", "CREATE TABLE items (id INT PRIMARY KEY);\n");
+        database.execute("CREATE SCHEMA TENANT_A");
+        database.execute("CREATE SCHEMA TENANT_B");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    private String currentVersion(String schema) throws Exception {
+        try (Statement statement = database.connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(version) FROM " + schema + ".schema_version")) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    @Test
+    void testMigratesEverySchemaWithItsOwnReports() throws Exception {
+        MigrationFanOut fanOut = new MigrationFanOut(database.config, 2);
+
+        FanOutSummary summary = fanOut.migrate(
+                MigrationFanOut.targets(List.of(), List.of("TENANT_A", "TENANT_B"), database.config));
+
+        assertEquals(2, summary.getTotal());
+        assertEquals(2, summary.getSucceeded());
+        assertEquals("1", summary.getTargets().get(0).getCurrentVersion());
+        assertEquals("1", currentVersion("TENANT_A"));
+        assertEquals("1", currentVersion("TENANT_B"));
+        assertTrue(Files.exists(dir.resolve("TENANT_A/migration_1.json")));
+        assertTrue(Files.exists(dir.resolve("TENANT_B/migration_1.json")));
+        assertTrue(Files.exists(dir.resolve("fanout_summary.json")));
+    }
+
+    @Test
+    void testRejectsNonPositiveParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new MigrationFanOut(database.config, 0));
+        assertThrows(IllegalArgumentException.class, () -> new MigrationFanOut(database.config, -1));
+    }
+}
@@ -0,0 +1,107 @@
+package org.example;
+
+import org.example.MigrationFile.MigrationFile;
+import org.example.MigrationFile.MigrationHeader;
+import org.example.MigrationTool.MigrationGraph;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationGraphUnitTests {
+
+    private static MigrationFile migration(String version, String script) {
+        return MigrationFile.builder()
+                .version(version)
+                .description("test")
+                .location("V" + version + "__test.sql")
+                .sqlSource(() -> new StringReader(script))
+                .build();
+    }
+
+    private static List<String> versions(List<MigrationFile> migrations) {
+        return migrations.stream().map(MigrationFile::getVersion).toList();
+    }
+
+    @Test
+    void testIndependentMigrationsAreReadyTogether() throws Exception {
+        MigrationFile users = migration("2", "-- @depends: 1\nCREATE TABLE users (id INT);");
+        MigrationFile orders = migration("3", "-- creates orders\n-- @depends: 1\nCREATE TABLE orders (id INT);");
+        MigrationFile joined = migration("4", "-- @depends: 2, 3\nCREATE VIEW v AS SELECT 1;");
+        MigrationGraph graph = MigrationGraph.build(List.of(users, orders, joined), List.of("1"));
+
+        assertEquals(List.of("2", "3"), versions(graph.takeReady()));
+        assertEquals(List.of(), versions(graph.takeReady()));
+        graph.complete(orders);
+        assertEquals(List.of(), versions(graph.takeReady()));
+        graph.complete(users);
+        assertEquals(List.of("4"), versions(graph.takeReady()));
+        graph.complete(joined);
+        assertTrue(graph.isComplete());
+    }
+
+    @Test
+    void testMigrationsWithoutHeaderWaitForAllEarlierMigrations() throws Exception {
+        MigrationFile first = migration("1", "CREATE TABLE a (id INT);");
+        MigrationFile independent = migration("2", "-- @depends:\nCREATE TABLE b (id INT);");
+        MigrationFile sequential = migration("3", "CREATE TABLE c (id INT);");
+        MigrationGraph graph = MigrationGraph.build(List.of(first, independent, sequential), List.of());
+
+        assertEquals(List.of("1", "2"), versions(graph.takeReady()));
+        graph.complete(independent);
+        assertEquals(List.of(), versions(graph.takeReady()));
+        graph.complete(first);
+        assertEquals(List.of("3"), versions(graph.takeReady()));
+    }
+
+    @Test
+    void testMigrationWithoutHeaderIsReleasedWhenEarlierMigrationsFinishOutOfOrder() throws Exception {
+        MigrationFile first = migration("1", "CREATE TABLE a (id INT);");
+        MigrationFile dependent = migration("2", "-- @depends: 1\nCREATE TABLE b (id INT);");
+        MigrationFile independent = migration("3", "-- @depends:\nCREATE TABLE c (id INT);");
+        MigrationFile sequential = migration("4", "CREATE TABLE d (id INT);");
+        MigrationGraph graph = MigrationGraph.build(List.of(sequential, independent, dependent, first), List.of());
+
+        assertEquals(List.of("1", "3"), versions(graph.takeReady()));
+        graph.complete(independent);
+        graph.complete(first);
+        assertEquals(List.of("2"), versions(graph.takeReady()));
+        graph.complete(dependent);
+        assertEquals(List.of("4"), versions(graph.takeReady()));
+        graph.complete(sequential);
+        assertTrue(graph.isComplete());
+    }
+
+    @Test
+    void testRejectsUnknownAndLaterDependencies() {
+        MigrationFile unknown = migration("2", "-- @depends: 1\nSELECT 1;");
+        assertThrows(IllegalStateException.class, () -> MigrationGraph.build(List.of(unknown), List.of()));
+
+        MigrationFile forward = migration("2", "-- @depends: 3\nSELECT 1;");
+        MigrationFile later = migration("3", "SELECT 1;");
+        assertThrows(IllegalStateException.class, () -> MigrationGraph.build(List.of(forward, later), List.of()));
+    }
+
+    @Test
+    void testParsesHeaderDirectivesUntilFirstStatement() throws Exception {
+        MigrationHeader header = MigrationHeader.parse(new StringReader("""
+                -- builds the index online
+                -- @transaction: none
+                -- @lock_timeout: 5 s
+                -- @statement_timeout: 10min
+
+                CREATE INDEX CONCURRENTLY idx ON t (id);
+                -- @depends: 1
+                """));
+
+        assertFalse(header.isTransactional());
+        assertEquals("5s", header.getLockTimeout());
+        assertEquals("10min", header.getStatementTimeout());
+        assertFalse(header.declaresDependencies());
+
+        MigrationHeader injected = MigrationHeader.parse(new StringReader("-- @lock_timeout: 1s'; DROP TABLE t; --\n"));
+        assertThrows(IllegalArgumentException.class, injected::getLockTimeout);
+    }
+}
@@ -0,0 +1,183 @@
+package org.example;
+
+import org.example.DBConnectionManager.ConnectionManager;
+import org.example.MigrationTool.MigrationExecutor;
+import org.example.MigrationTool.TableMigrationLock;
+import org.example.Utils.PropertiesUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationLockUnitTests {
+
+    private String url;
+    private Connection holderConnection;
+    private Connection waiterConnection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        url = "jdbc:h2:mem:lock_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        holderConnection = DriverManager.getConnection(url);
+        waiterConnection = DriverManager.getConnection(url);
+        new MigrationExecutor(holderConnection).initializeLockTable();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        holderConnection.close();
+        waiterConnection.close();
+    }
+
+    @Test
+    void testFailsFastWithoutWaitTimeout() throws Exception {
+        TableMigrationLock holder = new TableMigrationLock(holderConnection, Duration.ZERO);
+        holder.lock("holder");
+
+        TableMigrationLock waiter = new TableMigrationLock(waiterConnection, Duration.ZERO);
+        assertThrows(IllegalStateException.class, () -> waiter.lock("waiter"));
+        assertTrue(waiter.isLocked());
+    }
+
+    @Test
+    void testTimesOutWhileLockIsHeld() throws Exception {
+        new TableMigrationLock(holderConnection, Duration.ZERO).lock("holder");
+
+        TableMigrationLock waiter = new TableMigrationLock(waiterConnection, Duration.ofMillis(200));
+        assertThrows(IllegalStateException.class, () -> waiter.lock("waiter"));
+    }
+
+    @Test
+    void testWaiterAcquiresAfterRelease() throws Exception {
+        TableMigrationLock holder = new TableMigrationLock(holderConnection, Duration.ZERO);
+        holder.lock("holder");
+
+        TableMigrationLock waiter = new TableMigrationLock(waiterConnection, Duration.ofSeconds(10));
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+            try {
+                waiter.lock("waiter");
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(waiting.isDone());
+
+        holder.unlock();
+        waiting.get(5, TimeUnit.SECONDS);
+        assertTrue(waiter.isLocked());
+    }
+
+    @Test
+    void testTakesOverLockWithExpiredLease() throws Exception {
+        new TableMigrationLock(holderConnection, Duration.ZERO).lock("crashed");
+        try (Statement statement = holderConnection.createStatement()) {
+            statement.execute("UPDATE migration_lock SET lease_expires_at = TIMESTAMP '2000-01-01 00:00:00'");
+        }
+
+        TableMigrationLock waiter = new TableMigrationLock(waiterConnection, Duration.ZERO);
+        waiter.lock("next");
+
+        try (Statement statement = waiterConnection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT locked_by, taken_over_from, taken_over_at FROM migration_lock")) {
+            assertTrue(resultSet.next());
+            assertTrue(resultSet.getString("locked_by").startsWith("next"));
+            assertTrue(resultSet.getString("taken_over_from").startsWith("crashed"));
+            assertNotNull(resultSet.getTimestamp("taken_over_at"));
+        }
+    }
+
+    @Test
+    void testHeartbeatKeepsLeaseAlive() throws Exception {
+        PropertiesUtils config = new PropertiesUtils()
+                .withOverride("db.url", url)
+                .withOverride("db.username", "")
+                .withOverride("db.password", "");
+        TableMigrationLock holder = new TableMigrationLock(holderConnection, Duration.ZERO, Duration.ofMillis(300),
+                new ConnectionManager(config));
+        holder.lock("holder");
+        try {
+            Thread.sleep(900);
+            TableMigrationLock waiter = new TableMigrationLock(waiterConnection, Duration.ZERO);
+            assertThrows(IllegalStateException.class, () -> waiter.lock("waiter"));
+        } finally {
+            holder.unlock();
+        }
+        assertFalse(new TableMigrationLock(waiterConnection, Duration.ZERO).isLocked());
+    }
+
+    private TableMigrationLock leasedLock(Connection connection, Duration lease) {
+        PropertiesUtils config = new PropertiesUtils()
+                .withOverride("db.url", url)
+                .withOverride("db.username", "")
+                .withOverride("db.password", "");
+        return new TableMigrationLock(connection, Duration.ZERO, lease, new ConnectionManager(config));
+    }
+
+    @Test
+    void testLeaseIsNotExpiredForClientInAnotherTimeZone() throws Exception {
+        TableMigrationLock holder = leasedLock(holderConnection, Duration.ofMinutes(1));
+        holder.lock("holder");
+        TimeZone timeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("GMT+02:00"));
+        try (Connection eastConnection = DriverManager.getConnection(url)) {
+            TableMigrationLock waiter = new TableMigrationLock(eastConnection, Duration.ZERO);
+            assertTrue(waiter.isLocked());
+            assertThrows(IllegalStateException.class, () -> waiter.lock("waiter"));
+        } finally {
+            TimeZone.setDefault(timeZone);
+            holder.unlock();
+        }
+    }
+
+    @Test
+    void testLostLeaseFailsVerification() throws Exception {
+        TableMigrationLock holder = leasedLock(holderConnection, Duration.ofMillis(300));
+        holder.lock("holder");
+        try {
+            holder.verifyHeld();
+            try (Statement statement = waiterConnection.createStatement()) {
+                statement.execute("UPDATE migration_lock SET locked_by = 'other'");
+            }
+            Thread.sleep(400);
+            assertThrows(IllegalStateException.class, holder::verifyHeld);
+        } finally {
+            holder.unlock();
+        }
+    }
+
+    private String leaseColumnType() throws Exception {
+        try (Statement statement = holderConnection.createStatement();
+             ResultSet columns = statement.executeQuery("SELECT data_type FROM information_schema.columns"
+                     + " WHERE table_name = 'MIGRATION_LOCK' AND column_name = 'LEASE_EXPIRES_AT'")) {
+            assertTrue(columns.next());
+            return columns.getString(1);
+        }
+    }
+
+    @Test
+    void testConvertsLeaseColumnOfOlderTables() throws Exception {
+        try (Statement statement = holderConnection.createStatement()) {
+            statement.execute("DROP TABLE migration_lock");
+            statement.execute("CREATE TABLE migration_lock (id INT PRIMARY KEY, is_locked BOOLEAN NOT NULL,"
+                    + " locked_at TIMESTAMP, locked_by VARCHAR(255), lease_expires_at TIMESTAMP)");
+        }
+
+        new MigrationExecutor(holderConnection).initializeLockTable();
+
+        assertEquals("TIMESTAMP WITH TIME ZONE", leaseColumnType());
+        try (Statement statement = holderConnection.createStatement()) {
+            statement.execute("SELECT taken_over_from, taken_over_at FROM migration_lock");
+        }
+    }
+}
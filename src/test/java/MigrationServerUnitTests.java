@@ -0,0 +1,107 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.DBConnectionManager.ConnectionManager;
+import org.example.MigrationTool.MigrationServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationServerUnitTests {
+
+    @TempDir
+    Path dir;
+    private MigrationTestDatabase database;
+    private ConnectionManager connectionManager;
+    private MigrationServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new MigrationTestDatabase(dir, "serve", Map.of("serve.cache.ttl.ms", "60000"));
+        database.migration("V1__create.sql", "CREATE TABLE items (id INT PRIMARY KEY);\n");
+        database.migration("V2__seed.sql", "INSERT INTO items VALUES (1);\n");
+        database.rollback("V2__rollback.sql", "DELETE FROM items;\n");
+        connectionManager = new ConnectionManager(database.config);
+        server = new MigrationServer(connectionManager, database.config);
+        baseUrl = "http://127.0.0.1:" + server.start(0);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.close();
+        connectionManager.close();
+        database.close();
+    }
+
+    private HttpResponse<String> send(String method, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private JsonNode json(HttpResponse<String> response) throws Exception {
+        return objectMapper.readTree(response.body());
+    }
+
+    @Test
+    void testServesStatusMigrateAndRollback() throws Exception {
+        JsonNode status = json(send("GET", "/status"));
+        assertEquals(2, status.get("pending").asInt());
+
+        JsonNode migrated = json(send("POST", "/migrate"));
+        assertEquals("migrated", migrated.get("result").asText());
+        assertEquals("2", migrated.get("status").get("currentVersion").asText());
+        assertEquals(0, migrated.get("status").get("pending").asInt());
+        assertEquals("up-to-date", json(send("POST", "/migrate")).get("result").asText());
+        assertEquals(2, json(send("GET", "/status?limit=1")).get("applied").asInt());
+
+        JsonNode rolledBack = json(send("POST", "/rollback?version=1"));
+        assertEquals("rolled-back", rolledBack.get("result").asText());
+        assertEquals("1", rolledBack.get("status").get("currentVersion").asText());
+        assertEquals("migrated", json(send("POST", "/migrate")).get("result").asText());
+    }
+
+    @Test
+    void testRejectsInvalidRequests() throws Exception {
+        assertEquals(405, send("GET", "/migrate").statusCode());
+        assertEquals(400, send("POST", "/rollback").statusCode());
+        assertEquals(400, send("GET", "/status?limit=x").statusCode());
+    }
+
+    @Test
+    void testReconnectsWhenTheConnectionWasDropped() throws Exception {
+        assertEquals(2, json(send("GET", "/status")).get("pending").asInt());
+
+        // drop the warm connection of the server, as a database restart would
+        try (Statement statement = database.connection.createStatement();
+             ResultSet sessions = statement.executeQuery(
+                     "SELECT SESSION_ID FROM INFORMATION_SCHEMA.SESSIONS WHERE SESSION_ID <> SESSION_ID()")) {
+            while (sessions.next()) {
+                try (Statement abort = database.connection.createStatement()) {
+                    abort.execute("CALL ABORT_SESSION(" + sessions.getInt(1) + ")");
+                }
+            }
+        }
+
+        HttpResponse<String> migrated = send("POST", "/migrate");
+        assertEquals(200, migrated.statusCode(), migrated.body());
+        assertEquals("2", json(migrated).get("status").get("currentVersion").asText());
+    }
+}
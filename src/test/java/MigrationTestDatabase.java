@@ -0,0 +1,81 @@
+package org.example;
+
+import org.example.MigrationTool.MigrationExecutor;
+import org.example.MigrationTool.MigrationTool;
+import org.example.Utils.PropertiesUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * An in-memory H2 database with migrations and rollbacks directories in a temporary directory, configured the way
+ * tests run the migration tool against it: table lock, reports and caches in the directory, no metrics file.
+ */
+class MigrationTestDatabase implements AutoCloseable {
+    final Path dir;
+    final Path migrations;
+    final Path rollbacks;
+    final String url;
+    final Connection connection;
+    final PropertiesUtils config;
+    final MigrationExecutor executor;
+
+    MigrationTestDatabase(Path dir, String name) throws Exception {
+        this(dir, name, Map.of());
+    }
+
+    MigrationTestDatabase(Path dir, String name, Map<String, String> overrides) throws Exception {
+        this.dir = dir;
+        this.migrations = Files.createDirectories(dir.resolve("migrations"));
+        this.rollbacks = Files.createDirectories(dir.resolve("rollbacks"));
+        this.url = "jdbc:h2:mem:" + name + "_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        // the lock heartbeat connects with the configured credentials
+        this.connection = DriverManager.getConnection(url, "sa", "");
+        PropertiesUtils properties = new PropertiesUtils()
+                .withOverride("db.url", url)
+                .withOverride("db.username", "sa")
+                .withOverride("db.password", "")
+                .withOverride("migrations.path", migrations.toString())
+                .withOverride("rollbacks.path", rollbacks.toString())
+                .withOverride("reports.path", dir.toString())
+                .withOverride("cache.path", dir.resolve("cache").toString())
+                .withOverride("metrics.enabled", "false")
+                .withOverride("migration.lock.type", "table");
+        for (Map.Entry<String, String> override : overrides.entrySet()) {
+            properties = properties.withOverride(override.getKey(), override.getValue());
+        }
+        this.config = properties;
+        this.executor = new MigrationExecutor(connection, config);
+        executor.initializeSchemaTable();
+        executor.initializeLockTable();
+    }
+
+    MigrationTool migrationTool() {
+        return new MigrationTool(executor, connection, config);
+    }
+
+    Path migration(String fileName, String sql) throws IOException {
+        return Files.writeString(migrations.resolve(fileName), sql);
+    }
+
+    Path rollback(String fileName, String sql) throws IOException {
+        return Files.writeString(rollbacks.resolve(fileName), sql);
+    }
+
+    void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+}
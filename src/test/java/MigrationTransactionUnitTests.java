@@ -0,0 +1,108 @@
+package org.example;
+
+import org.example.MigrationTool.MigrationTool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationTransactionUnitTests {
+
+    @TempDir
+    Path dir;
+    private MigrationTestDatabase database;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new MigrationTestDatabase(dir, "transaction");
+        database.migration("V1__create.sql", "CREATE TABLE items (id INT PRIMARY KEY);\n");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    void testInvalidDirectiveRollsBackTheWholeRun() throws Exception {
+        database.migration("V2__timeout.sql", "-- @lock_timeout: 5 seconds\nINSERT INTO items VALUES (1);\n");
+        MigrationTool migrationTool = database.migrationTool();
+
+        SQLException exception = assertThrows(SQLException.class, migrationTool::migrate);
+
+        assertEquals("Migration process failed", exception.getMessage());
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        assertEquals(List.of(), database.executor.getAppliedMigrations());
+    }
+
+    // V3 fails after V1 and V2 were applied; returns the versions left in schema_version
+    private List<String> migrateWithFailingThird(String transactionMode, String thirdScript) throws Exception {
+        database.migration("V2__seed.sql", "INSERT INTO items VALUES (1);\n");
+        database.migration("V3__broken.sql", thirdScript);
+        MigrationTool migrationTool = new MigrationTool(database.executor, database.connection,
+                database.config.withOverride("migration.transaction.mode", transactionMode));
+
+        assertThrows(SQLException.class, migrationTool::migrate);
+        return database.executor.getAppliedMigrations();
+    }
+
+    @Test
+    void testSingleTransactionKeepsNothingOnFailure() throws Exception {
+        assertEquals(List.of(), migrateWithFailingThird("single", "INSERT INTO missing VALUES (1);\n"));
+    }
+
+    @Test
+    void testPerMigrationKeepsMigrationsBeforeFailure() throws Exception {
+        assertEquals(List.of("1", "2"), migrateWithFailingThird("per-migration", "INSERT INTO missing VALUES (1);\n"));
+    }
+
+    @Test
+    void testSavepointKeepsMigrationsBeforeFailure() throws Exception {
+        assertEquals(List.of("1", "2"), migrateWithFailingThird("savepoint", "INSERT INTO missing VALUES (1);\n"));
+    }
+
+    @Test
+    void testSavepointReleasedByNonTransactionalMigration() throws Exception {
+        // committing before the non-transactional migration releases its savepoint
+        assertEquals(List.of("1", "2"), migrateWithFailingThird("savepoint",
+                "-- @transaction: none\nINSERT INTO missing VALUES (1);\n"));
+    }
+
+    // a parallel run applied V1 and V3, then failed on V2
+    private void leaveVersionTwoUnapplied() throws Exception {
+        database.migration("V2__orders.sql", "-- @depends: 1\nCREATE TABLE orders (id INT);\n");
+        database.migration("V3__users.sql", "-- @depends: 1\nCREATE TABLE users (id INT);\n");
+        database.execute("CREATE TABLE items (id INT PRIMARY KEY)");
+        database.execute("CREATE TABLE users (id INT)");
+        database.execute("INSERT INTO schema_version (version, description) VALUES ('1', 'create'), ('3', 'users')");
+    }
+
+    @Test
+    void testSequentialRunFailsOnVersionsSkippedByAGraphRun() throws Exception {
+        leaveVersionTwoUnapplied();
+
+        SQLException exception = assertThrows(SQLException.class, database.migrationTool()::migrate);
+
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertTrue(exception.getCause().getMessage().contains("[2]"));
+        assertEquals(List.of("1", "3"), database.executor.getAppliedMigrations());
+    }
+
+    @Test
+    void testSequentialRunAppliesSkippedVersionsOutOfOrder() throws Exception {
+        leaveVersionTwoUnapplied();
+        MigrationTool migrationTool = new MigrationTool(database.executor, database.connection,
+                database.config.withOverride("migration.out.of.order", "true"));
+
+        migrationTool.migrate();
+
+        assertEquals(List.of("1", "2", "3"), database.executor.getAppliedMigrations());
+        database.execute("SELECT id FROM orders");
+    }
+}
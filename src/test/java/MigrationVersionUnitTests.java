@@ -0,0 +1,60 @@
+package org.example;
+
+import org.example.MigrationFile.MigrationIndex;
+import org.example.MigrationFile.MigrationVersion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationVersionUnitTests {
+
+    private static MigrationVersion v(String version) {
+        return MigrationVersion.parse(version);
+    }
+
+    @Test
+    void testComparesSegmentsNumerically() {
+        assertTrue(v("10").compareTo(v("2")) > 0);
+        assertTrue(v("1.2.10").compareTo(v("1.2.9")) > 0);
+        assertTrue(v("1.2").compareTo(v("1.2.1")) < 0);
+        assertEquals(v("1.0"), v("V1"));
+        assertEquals(0, v("1_2").compareTo(v("1.2")));
+        assertEquals("1.2.10", v("1.2.10").toString());
+    }
+
+    @Test
+    void testComparesTimestampVersions() {
+        assertTrue(v("V20240101120000").compareTo(v("20231231235959")) > 0);
+        MigrationIndex<String> index = MigrationIndex.of(
+                List.of("20240101120000", "20231231235959", "20240215093000"), Function.identity());
+        assertEquals(List.of("20240215093000"), index.after(v("20240101120000")));
+    }
+
+    @Test
+    void testRejectsNonNumericVersions() {
+        assertThrows(IllegalArgumentException.class, () -> MigrationVersion.parse("1.a"));
+        assertThrows(IllegalArgumentException.class, () -> MigrationVersion.parse(""));
+    }
+
+    @Test
+    void testIndexRangeQueries() {
+        MigrationIndex<String> index = MigrationIndex.of(List.of("10", "2", "1", "1.5", "3"), Function.identity());
+
+        assertEquals(List.of("1", "1.5", "2", "3", "10"), index.all());
+        assertEquals(List.of("3", "10"), index.after(v("2")));
+        assertEquals(List.of("1.5", "2", "3"), index.after(v("1.1")).subList(0, 3));
+        assertEquals(List.of("2", "3"), index.range(v("1.5"), false, v("3"), true));
+        assertEquals(List.of("1", "1.5"), index.range(v("1"), true, v("2"), false));
+        assertTrue(index.range(v("3"), false, v("2"), true).isEmpty());
+        assertEquals("10", index.get(v("10.0")));
+        assertNull(index.get(v("4")));
+    }
+
+    @Test
+    void testIndexRejectsDuplicateVersions() {
+        assertThrows(IllegalStateException.class, () -> MigrationIndex.of(List.of("1", "1.0"), Function.identity()));
+    }
+}
@@ -0,0 +1,61 @@
+package org.example;
+
+import org.example.MigrationTool.MigrationTool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepeatableMigrationUnitTests {
+
+    @TempDir
+    Path dir;
+    private MigrationTestDatabase database;
+    private MigrationTool migrationTool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new MigrationTestDatabase(dir, "repeatable");
+        database.migration("V1__create.sql", "CREATE TABLE items (id INT PRIMARY KEY, price INT);\n");
+        database.migration("R__items_view.sql", "CREATE OR REPLACE VIEW items_view AS SELECT id FROM items;\n");
+        migrationTool = database.migrationTool();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    private String appliedAt() throws Exception {
+        try (Statement statement = database.connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT applied_at FROM repeatable_migration WHERE name = 'items_view'")) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    @Test
+    void testReappliesRepeatableOnlyWhenItsScriptChanges() throws Exception {
+        migrationTool.migrate();
+        String firstRun = appliedAt();
+        assertNotNull(firstRun);
+
+        migrationTool.migrate();
+        assertEquals(firstRun, appliedAt());
+
+        database.migration("R__items_view.sql",
+                "CREATE OR REPLACE VIEW items_view AS SELECT id, price FROM items;\n");
+        migrationTool.migrate();
+        assertNotEquals(firstRun, appliedAt());
+        try (Statement statement = database.connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT price FROM items_view")) {
+            assertFalse(resultSet.next());
+        }
+    }
+}
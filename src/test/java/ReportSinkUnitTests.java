@@ -0,0 +1,68 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.MigrationReport.AsyncReportSink;
+import org.example.MigrationReport.MigrationReport;
+import org.example.MigrationReport.ReportSink;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportSinkUnitTests {
+
+    @TempDir
+    Path reports;
+
+    @Test
+    void testAsyncSinkAppendsAllReportsAsNdjson() throws Exception {
+        // a tiny queue makes the writers block on a full queue
+        try (AsyncReportSink sink = new AsyncReportSink(reports, 2)) {
+            try (ExecutorService writers = Executors.newFixedThreadPool(4)) {
+                for (int t = 0; t < 4; t++) {
+                    ReportSink target = sink.forTarget("tenant_" + t);
+                    writers.submit(() -> {
+                        for (int i = 0; i < 50; i++) {
+                            target.write("migration_" + i, MigrationReport.builder().version(String.valueOf(i)).status("SUCCESS").build());
+                        }
+                    });
+                }
+            }
+            sink.flush();
+
+            List<String> lines = Files.readAllLines(sink.getFile());
+            assertEquals(200, lines.size());
+            JsonNode line = new ObjectMapper().readTree(lines.get(0));
+            assertTrue(line.get("target").asText().startsWith("tenant_"));
+            assertTrue(line.get("report").asText().startsWith("migration_"));
+            assertEquals("SUCCESS", line.get("status").asText());
+        }
+    }
+
+    @Test
+    void testFlushRacingCloseReturns() {
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+            for (int run = 0; run < 200; run++) {
+                AsyncReportSink sink = new AsyncReportSink(reports.resolve("run_" + run), 4);
+                try (ExecutorService flushers = Executors.newFixedThreadPool(2)) {
+                    Future<?> flushing = flushers.submit(() -> {
+                        for (int i = 0; i < 20; i++) {
+                            sink.flush();
+                        }
+                    });
+                    sink.close();
+                    flushing.get();
+                }
+            }
+        });
+    }
+}
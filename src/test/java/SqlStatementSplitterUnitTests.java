@@ -0,0 +1,95 @@
+package org.example;
+
+import org.example.MigrationFile.SqlStatement;
+import org.example.MigrationFile.SqlStatementSplitter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatementSplitterUnitTests {
+
+    private List<SqlStatement> split(String script) throws IOException {
+        List<SqlStatement> statements = new ArrayList<>();
+        try (SqlStatementSplitter splitter = new SqlStatementSplitter(new StringReader(script))) {
+            SqlStatement statement;
+            while ((statement = splitter.next()) != null) {
+                statements.add(statement);
+            }
+        }
+        return statements;
+    }
+
+    @Test
+    void testSplitsOnTopLevelSemicolons() throws Exception {
+        List<SqlStatement> statements = split("-- header\nCREATE TABLE a (id INT);\n\nINSERT INTO a VALUES (1);\n");
+
+        assertEquals(2, statements.size());
+        assertEquals("CREATE TABLE a (id INT)", statements.get(0).getSql());
+        assertEquals(2, statements.get(0).getLineNumber());
+        assertEquals("INSERT INTO a VALUES (1)", statements.get(1).getSql());
+        assertEquals(4, statements.get(1).getLineNumber());
+    }
+
+    @Test
+    void testIgnoresSemicolonsInLiteralsAndComments() throws Exception {
+        List<SqlStatement> statements = split("""
+                INSERT INTO t VALUES ('a;b', 'it''s;', E'\\';x', "odd;name"); /* c; /* nested; */ */
+                SELECT 1 -- trailing; comment
+                ;
+                """);
+
+        assertEquals(2, statements.size());
+        assertTrue(statements.get(0).getSql().endsWith("\"odd;name\")"));
+        assertEquals("SELECT 1 -- trailing; comment", statements.get(1).getSql());
+    }
+
+    @Test
+    void testKeepsDollarQuotedBodiesTogether() throws Exception {
+        List<SqlStatement> statements = split("""
+                CREATE FUNCTION f() RETURNS int AS $body$ BEGIN PERFORM 1; RETURN $1; END; $body$ LANGUAGE plpgsql;
+                DO $$ BEGIN RAISE NOTICE 'x;'; END $$;
+                SELECT a$b FROM t;
+                """);
+
+        assertEquals(3, statements.size());
+        assertTrue(statements.get(0).getSql().endsWith("LANGUAGE plpgsql"));
+        assertEquals("DO $$ BEGIN RAISE NOTICE 'x;'; END $$", statements.get(1).getSql());
+        assertEquals("SELECT a$b FROM t", statements.get(2).getSql());
+    }
+
+    @Test
+    void testStreamsCopyData() throws Exception {
+        String script = "COPY t (id, name) FROM stdin;\n1\ta;b\n2\tc\n\\.\nSELECT 2;\n";
+        try (SqlStatementSplitter splitter = new SqlStatementSplitter(new StringReader(script))) {
+            SqlStatement copy = splitter.next();
+            assertTrue(copy.isCopyFromStdin());
+
+            Reader data = splitter.copyData();
+            StringBuilder rows = new StringBuilder();
+            int c;
+            while ((c = data.read()) != -1) {
+                rows.append((char) c);
+            }
+            assertEquals("1\ta;b\n2\tc\n", rows.toString());
+
+            SqlStatement next = splitter.next();
+            assertEquals("SELECT 2", next.getSql());
+            assertEquals(5, next.getLineNumber());
+            assertNull(splitter.next());
+        }
+    }
+
+    @Test
+    void testSkipsUnreadCopyData() throws Exception {
+        List<SqlStatement> statements = split("COPY t FROM STDIN;\nx;y\n\\.\nSELECT 3;");
+
+        assertEquals(2, statements.size());
+        assertEquals("SELECT 3", statements.get(1).getSql());
+    }
+}
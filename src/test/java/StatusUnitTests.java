@@ -0,0 +1,79 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.MigrationReport.MigrationStatus;
+import org.example.MigrationTool.MigrationTool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusUnitTests {
+
+    @TempDir
+    Path dir;
+    private MigrationTestDatabase database;
+    private MigrationTool migrationTool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new MigrationTestDatabase(dir, "status");
+        for (int version = 1; version <= 5; version++) {
+            database.migration("V" + version + "__step.sql", "SELECT " + version + ";\n");
+        }
+        migrationTool = database.migrationTool();
+        database.execute("INSERT INTO schema_version (version, description) VALUES "
+                + "('1', 'step'), ('10', 'gone'), ('2', 'step'), ('3', 'step')");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    void testMergesAppliedVersionsWithScripts() throws Exception {
+        MigrationStatus status = migrationTool.getStatus(-1);
+        assertEquals("10", status.getCurrentVersion());
+        assertEquals(4, status.getAppliedCount());
+        assertEquals(2, status.getPendingCount());
+        assertEquals(1, status.getMissingCount());
+        assertEquals(List.of("1", "2", "3", "10"), status.getAppliedVersions());
+        assertEquals(List.of("4", "5"), status.getPendingVersions());
+        assertEquals(List.of("10"), status.getMissingVersions());
+
+        MigrationStatus limited = migrationTool.getStatus(1);
+        assertEquals(List.of("10"), limited.getAppliedVersions());
+        assertEquals(List.of("4"), limited.getPendingVersions());
+        assertEquals(2, limited.getPendingCount());
+        assertTrue(migrationTool.getStatus(0).getAppliedVersions().isEmpty());
+        assertTrue(database.connection.getAutoCommit());
+    }
+
+    @Test
+    void testPrintsJson() throws Exception {
+        PrintStream out = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        try {
+            migrationTool.status("json", 2);
+        } finally {
+            System.setOut(out);
+        }
+
+        JsonNode json = new ObjectMapper().readTree(buffer.toString(StandardCharsets.UTF_8));
+        assertEquals("10", json.get("currentVersion").asText());
+        assertEquals(2, json.get("pending").asInt());
+        assertEquals(2, json.get("appliedVersions").size());
+        assertEquals("3", json.get("appliedVersions").get(0).asText());
+    }
+}
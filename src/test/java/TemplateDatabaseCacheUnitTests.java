@@ -0,0 +1,54 @@
+package org.example;
+
+import org.example.MigrationTool.TemplateDatabaseCache;
+import org.example.MigrationTool.TemplateDatabaseCache.TemplateState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateDatabaseCacheUnitTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReplacesTheDatabaseOfTheUrl() {
+        assertEquals("jdbc:postgresql://host:5432/clone_1?ssl=true&currentSchema=app",
+                TemplateDatabaseCache.withDatabase("jdbc:postgresql://host:5432/postgres?ssl=true&currentSchema=app", "clone_1"));
+        assertEquals("jdbc:postgresql://host/clone_1",
+                TemplateDatabaseCache.withDatabase("jdbc:postgresql://host/postgres", "clone_1"));
+        assertEquals("jdbc:postgresql://host:5432/clone_1",
+                TemplateDatabaseCache.withDatabase("jdbc:postgresql://host:5432", "clone_1"));
+        assertEquals("jdbc:postgresql://host/clone_1?ssl=true",
+                TemplateDatabaseCache.withDatabase("jdbc:postgresql://host?ssl=true", "clone_1"));
+        assertThrows(IllegalStateException.class,
+                () -> TemplateDatabaseCache.withDatabase("jdbc:h2:mem:test", "clone_1"));
+    }
+
+    @Test
+    void testStateRoundTrip() throws Exception {
+        Path file = dir.resolve("cache").resolve("template-migration_template.state");
+        assertNull(TemplateDatabaseCache.readState(file));
+
+        TemplateDatabaseCache.writeState(file, new TemplateState("a1b2c3", "12"));
+        assertEquals(new TemplateState("a1b2c3", "12"), TemplateDatabaseCache.readState(file));
+
+        // a template without applied migrations has an empty version
+        TemplateDatabaseCache.writeState(file, new TemplateState("d4e5f6", ""));
+        assertEquals(new TemplateState("d4e5f6", ""), TemplateDatabaseCache.readState(file));
+    }
+
+    @Test
+    void testIgnoresForeignStateFiles() throws Exception {
+        Path file = dir.resolve("template.state");
+        Files.writeString(file, "a1b2c3\t12\n");
+        assertNull(TemplateDatabaseCache.readState(file));
+
+        Files.writeString(file, "# template-state v1\na1b2c3\n");
+        assertNull(TemplateDatabaseCache.readState(file));
+    }
+}